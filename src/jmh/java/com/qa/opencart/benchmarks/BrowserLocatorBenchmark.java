@@ -0,0 +1,101 @@
+package com.qa.opencart.benchmarks;
+
+import com.qa.opencart.factory.DriverBinaryResolver;
+import com.qa.opencart.utils.ConfigManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Locator strategies against a real headless Chrome on a generated page with
+ * rowCount form rows, i.e. the time the browser spends resolving id, css and xpath
+ * plus one local round trip.<br/>
+ * Needs a local Chrome; the setup fails with a clear message when there is none.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BrowserLocatorBenchmark {
+
+    @Param({"50", "1000"})
+    public int rowCount;
+
+    private WebDriver driver;
+    private By byId;
+    private By byCss;
+    private By byXpath;
+    private By allRows;
+
+    @Setup
+    public void setup() throws Exception {
+        try {
+            new DriverBinaryResolver(ConfigManager.getInstance()).resolve("chrome");
+            driver = new ChromeDriver(new ChromeOptions().addArguments("--headless", "--disable-gpu"));
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("BrowserLocatorBenchmark needs a local Chrome: " + e.getMessage(), e);
+        }
+        StringBuilder html = new StringBuilder("<html><body><form id='content'>");
+        for (int i = 0; i < rowCount; i++) {
+            html.append("<div class='row'><input id='input-").append(i).append("' name='field").append(i)
+                    .append("' class='form-control'></div>");
+        }
+        html.append("</form></body></html>");
+        driver.get("data:text/html;charset=utf-8,"
+                + URLEncoder.encode(html.toString(), StandardCharsets.UTF_8.name()).replace("+", "%20"));
+
+        int last = rowCount - 1;
+        byId = By.id("input-" + last);
+        byCss = By.cssSelector("#content div.row input[name='field" + last + "']");
+        byXpath = By.xpath("//form[@id='content']//input[@name='field" + last + "']");
+        allRows = By.cssSelector("#content div.row");
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (driver != null) {
+            driver.quit();
+        }
+    }
+
+    @Benchmark
+    public WebElement findById() {
+        return driver.findElement(byId);
+    }
+
+    @Benchmark
+    public WebElement findByCss() {
+        return driver.findElement(byCss);
+    }
+
+    @Benchmark
+    public WebElement findByXpath() {
+        return driver.findElement(byXpath);
+    }
+
+    @Benchmark
+    public List<WebElement> findAllRows() {
+        return driver.findElements(allRows);
+    }
+}
@@ -0,0 +1,76 @@
+package com.qa.opencart.benchmarks;
+
+import com.qa.opencart.utils.ElementUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openqa.selenium.By;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the bulk ElementUtils methods against StubWebDriver.<br/>
+ * latencyMicros simulates the round trip to a local (0) or remote (100+) browser, so the
+ * results show both the framework overhead and how the number of round trips scales with
+ * the number of matched elements. javaScript = false exercises the per-element fallback.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ElementUtilsBenchmark {
+    private static final By OPTIONS = By.cssSelector("#input-country option");
+    private static final By COUNTRY = By.id("input-country");
+
+    @Param({"0", "100"})
+    public long latencyMicros;
+
+    @Param({"10", "200"})
+    public int elementCount;
+
+    @Param({"true", "false"})
+    public boolean javaScript;
+
+    private ElementUtils elementUtils;
+    private String lastOption;
+
+    @Setup
+    public void setup() {
+        StubWebDriver driver = new StubWebDriver(TimeUnit.MICROSECONDS.toNanos(latencyMicros), elementCount, javaScript);
+        elementUtils = new ElementUtils(driver);
+        lastOption = "Item " + (elementCount - 1);
+    }
+
+    @Benchmark
+    public List<String> getElementsTextList() {
+        return elementUtils.getElementsTextList(OPTIONS);
+    }
+
+    @Benchmark
+    public List<String> getElementsAttributeList() {
+        return elementUtils.getElementsAttributeList(OPTIONS, "value");
+    }
+
+    @Benchmark
+    public List<String> getDropDownOptionsList() {
+        return elementUtils.getDropDownOptionsList(COUNTRY);
+    }
+
+    @Benchmark
+    public void selectValueFromDropDown(Blackhole bh) {
+        elementUtils.selectValueFromDropDown(COUNTRY, lastOption);
+        bh.consume(lastOption);
+    }
+}
@@ -0,0 +1,74 @@
+package com.qa.opencart.benchmarks;
+
+import com.qa.opencart.utils.ElementUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building locators with ElementUtils.getBy (interned) compared to creating
+ * a new By for every lookup, for each locator strategy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocatorBenchmark {
+
+    @Param({"id", "css", "xpath", "linktext"})
+    public String locatorType;
+
+    private ElementUtils elementUtils;
+    private String locatorValue;
+
+    @Setup
+    public void setup() {
+        elementUtils = new ElementUtils(new StubWebDriver(0, 1, true));
+        switch (locatorType) {
+            case "id":
+                locatorValue = "input-email";
+                break;
+            case "css":
+                locatorValue = "#content form input[name='email']";
+                break;
+            case "xpath":
+                locatorValue = "//div[@id='content']//input[@name='email']";
+                break;
+            default:
+                locatorValue = "Forgotten Password";
+                break;
+        }
+    }
+
+    @Benchmark
+    public By getByInterned() {
+        return elementUtils.getBy(locatorType, locatorValue);
+    }
+
+    @Benchmark
+    public By newBy() {
+        switch (locatorType) {
+            case "id":
+                return By.id(locatorValue);
+            case "css":
+                return By.cssSelector(locatorValue);
+            case "xpath":
+                return By.xpath(locatorValue);
+            default:
+                return By.linkText(locatorValue);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.qa.opencart.benchmarks;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process WebDriver which answers every command from memory after a configurable
+ * simulated round-trip latency, so the benchmarks measure framework overhead and the
+ * number of round trips instead of browser time.<br/>
+ * Every locator matches elementCount elements; findElement fails until the time set
+ * with appearAt(), which lets wait benchmarks control when an element shows up.
+ */
+public class StubWebDriver implements WebDriver, JavascriptExecutor {
+    private final long latencyNanos;
+    private final int elementCount;
+    private final boolean javaScript;
+    private final AtomicLong roundTrips = new AtomicLong();
+    private volatile long appearAtNanos;
+
+    /**
+     * @param latencyNanos simulated latency of every command
+     * @param elementCount number of elements each locator matches
+     * @param javaScript false to reject executeScript like a driver without JavaScript support
+     */
+    public StubWebDriver(long latencyNanos, int elementCount, boolean javaScript) {
+        this.latencyNanos = latencyNanos;
+        this.elementCount = elementCount;
+        this.javaScript = javaScript;
+    }
+
+    /**
+     * Elements are found only from the given System.nanoTime() on.
+     * @param nanoTime
+     */
+    public void appearAt(long nanoTime) {
+        this.appearAtNanos = nanoTime;
+    }
+
+    public long getRoundTrips() {
+        return roundTrips.get();
+    }
+
+    int getElementCount() {
+        return elementCount;
+    }
+
+    void roundTrip() {
+        roundTrips.incrementAndGet();
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+    }
+
+    private void checkPresent(By by) {
+        if (System.nanoTime() < appearAtNanos) {
+            throw new NoSuchElementException("Stub element not present yet: " + by);
+        }
+    }
+
+    List<WebElement> elements() {
+        List<WebElement> elements = new ArrayList<WebElement>(elementCount);
+        for (int i = 0; i < elementCount; i++) {
+            elements.add(new StubWebElement(this, i));
+        }
+        return elements;
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        roundTrip();
+        checkPresent(by);
+        return new StubWebElement(this, 0);
+    }
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        roundTrip();
+        if (System.nanoTime() < appearAtNanos) {
+            return Collections.emptyList();
+        }
+        return elements();
+    }
+
+    @Override
+    public Object executeScript(String script, Object... args) {
+        roundTrip();
+        if (!javaScript) {
+            throw new UnsupportedCommandException("executeScript is disabled in this stub");
+        }
+        if (script.contains("__opencartOptions")) {
+            // DropDownEngine option list: the stub's options never change
+            List<Object> options = new ArrayList<Object>(elementCount + 1);
+            options.add("stub:0");
+            if (!"stub:0".equals(args[2])) {
+                for (int i = 0; i < elementCount; i++) {
+                    options.add(StubWebElement.text(i));
+                }
+            }
+            return options;
+        }
+        if (script.contains("by = arguments[2]")) {
+            // DropDownEngine selection by text
+            for (int i = 0; i < elementCount; i++) {
+                if (StubWebElement.text(i).equals(args[3]) || String.valueOf(i).equals(args[3])) {
+                    return (long) i;
+                }
+            }
+            return -1L;
+        }
+        List<Object> result = new ArrayList<Object>(elementCount);
+        for (int i = 0; i < elementCount; i++) {
+            if (script.contains("select.options")) {
+                result.add(StubWebElement.text(i));
+            } else if (script.contains("var name = arguments[2]")) {
+                result.add(StubWebElement.value(i));
+            } else if (script.contains(".map(visible)")) {
+                result.add(Boolean.TRUE);
+            } else {
+                result.add(StubWebElement.text(i));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Object executeAsyncScript(String script, Object... args) {
+        roundTrip();
+        throw new UnsupportedCommandException("executeAsyncScript is not supported by this stub");
+    }
+
+    @Override
+    public void get(String url) {
+        roundTrip();
+    }
+
+    @Override
+    public String getCurrentUrl() {
+        roundTrip();
+        return "http://stub/index.php?route=account/login";
+    }
+
+    @Override
+    public String getTitle() {
+        roundTrip();
+        return "Account Login";
+    }
+
+    @Override
+    public String getPageSource() {
+        roundTrip();
+        return "<html></html>";
+    }
+
+    @Override
+    public void close() {
+        roundTrip();
+    }
+
+    @Override
+    public void quit() {
+        roundTrip();
+    }
+
+    @Override
+    public Set<String> getWindowHandles() {
+        roundTrip();
+        return Collections.singleton("stub-window");
+    }
+
+    @Override
+    public String getWindowHandle() {
+        roundTrip();
+        return "stub-window";
+    }
+
+    @Override
+    public TargetLocator switchTo() {
+        throw new UnsupportedOperationException("switchTo is not supported by this stub");
+    }
+
+    @Override
+    public Navigation navigate() {
+        throw new UnsupportedOperationException("navigate is not supported by this stub");
+    }
+
+    @Override
+    public Options manage() {
+        throw new UnsupportedOperationException("manage is not supported by this stub");
+    }
+}
@@ -0,0 +1,135 @@
+package com.qa.opencart.benchmarks;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebElement;
+
+import java.util.List;
+
+/**
+ * Element of StubWebDriver. It behaves as a select element whose options are the
+ * driver's elements, so drop down utilities can be benchmarked as well.
+ */
+class StubWebElement implements WebElement {
+    private final StubWebDriver driver;
+    private final int index;
+
+    StubWebElement(StubWebDriver driver, int index) {
+        this.driver = driver;
+        this.index = index;
+    }
+
+    static String text(int index) {
+        return "Item " + index;
+    }
+
+    static String value(int index) {
+        return "value-" + index;
+    }
+
+    @Override
+    public void click() {
+        driver.roundTrip();
+    }
+
+    @Override
+    public void submit() {
+        driver.roundTrip();
+    }
+
+    @Override
+    public void sendKeys(CharSequence... keysToSend) {
+        driver.roundTrip();
+    }
+
+    @Override
+    public void clear() {
+        driver.roundTrip();
+    }
+
+    @Override
+    public String getTagName() {
+        driver.roundTrip();
+        return "select";
+    }
+
+    @Override
+    public String getDomAttribute(String name) {
+        driver.roundTrip();
+        return null;
+    }
+
+    @Override
+    public String getAttribute(String name) {
+        driver.roundTrip();
+        return value(index);
+    }
+
+    @Override
+    public boolean isSelected() {
+        driver.roundTrip();
+        return false;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        driver.roundTrip();
+        return true;
+    }
+
+    @Override
+    public String getText() {
+        driver.roundTrip();
+        return text(index);
+    }
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        driver.roundTrip();
+        return driver.elements();
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        driver.roundTrip();
+        return new StubWebElement(driver, 0);
+    }
+
+    @Override
+    public boolean isDisplayed() {
+        driver.roundTrip();
+        return true;
+    }
+
+    @Override
+    public Point getLocation() {
+        driver.roundTrip();
+        return new Point(0, index * 20);
+    }
+
+    @Override
+    public Dimension getSize() {
+        driver.roundTrip();
+        return new Dimension(100, 20);
+    }
+
+    @Override
+    public Rectangle getRect() {
+        driver.roundTrip();
+        return new Rectangle(getLocation(), getSize());
+    }
+
+    @Override
+    public String getCssValue(String propertyName) {
+        driver.roundTrip();
+        return "";
+    }
+
+    @Override
+    public <X> X getScreenshotAs(OutputType<X> target) {
+        throw new UnsupportedOperationException("Screenshots are not supported by this stub");
+    }
+}
@@ -0,0 +1,76 @@
+package com.qa.opencart.benchmarks;
+
+import com.qa.opencart.utils.ElementUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overshoot of the wait methods: the element appears appearAfterMillis after the wait starts
+ * and the score is the time until the wait returns.<br/>
+ * plainWebDriverWait is the baseline with Selenium's fixed 500 ms polling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WaitBenchmark {
+    private static final By EMAIL = By.id("input-email");
+    private static final int TIME_OUT = 10;
+
+    @Param({"0", "30", "120"})
+    public long appearAfterMillis;
+
+    private StubWebDriver driver;
+    private ElementUtils elementUtils;
+
+    @Setup
+    public void setup() {
+        driver = new StubWebDriver(0, 1, true);
+        elementUtils = new ElementUtils(driver);
+    }
+
+    @Setup(Level.Invocation)
+    public void scheduleElement() {
+        driver.appearAt(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(appearAfterMillis));
+    }
+
+    @Benchmark
+    public WebElement waitForElementPresence() {
+        return elementUtils.waitForElementPresence(EMAIL, TIME_OUT);
+    }
+
+    @Benchmark
+    public WebElement waitForElementVisible() {
+        return elementUtils.waitForElementVisible(EMAIL, TIME_OUT);
+    }
+
+    @Benchmark
+    public WebElement waitForElementPresenceWithFluentWait() {
+        return elementUtils.waitForElementPresenceWithFluentWait(EMAIL, Duration.ofSeconds(TIME_OUT), Duration.ofMillis(500));
+    }
+
+    @Benchmark
+    public WebElement plainWebDriverWait() {
+        return new WebDriverWait(driver, Duration.ofSeconds(TIME_OUT))
+                .until(ExpectedConditions.presenceOfElementLocated(EMAIL));
+    }
+}
@@ -0,0 +1,167 @@
+package com.qa.opencart.factory;
+
+import com.qa.opencart.utils.ConfigManager;
+import com.qa.opencart.utils.Log;
+import io.github.bonigarcia.wdm.WebDriverManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves the driver binary (chromedriver, geckodriver, msedgedriver) once per JVM.<br/>
+ * The resolved path and version are kept in driver-binaries.properties inside driver.cache.dir,
+ * guarded by a file lock so parallel surefire forks wait for one resolution instead of each
+ * running WebDriverManager; threads of one JVM are serialized before they take the file lock. A cached binary that still exists is used without any network
+ * access; after driver.cache.ttl it is resolved again unless driver.offline is true.
+ */
+public class DriverBinaryResolver {
+    private static final Log log = Log.get(DriverBinaryResolver.class);
+    private static final String CACHE_FILE = "driver-binaries.properties";
+    private static final String LOCK_FILE = "driver-binaries.lock";
+
+    private static final Map<String, String> resolvedPaths = new ConcurrentHashMap<>();
+    // a FileLock is held per JVM, so threads of one JVM take turns before asking for it
+    private static final Object resolveLock = new Object();
+
+    private final Path cacheDir;
+    private final long ttlMillis;
+    private final boolean offline;
+
+    public DriverBinaryResolver(ConfigManager config) {
+        String dir = config.getString("driver.cache.dir", "");
+        this.cacheDir = dir.isEmpty()
+                ? Paths.get(System.getProperty("user.home"), ".cache", "opencart-drivers")
+                : Paths.get(dir);
+        this.ttlMillis = config.getDuration("driver.cache.ttl", Duration.ofHours(24)).toMillis();
+        this.offline = config.getBoolean("driver.offline", false);
+    }
+
+    /**
+     * Makes sure the driver binary of the browser is known to Selenium.<br/>
+     * Only the first call per browser and JVM does any work.
+     * @param browserName chrome, firefox or edge
+     * @return the path of the driver binary
+     */
+    public String resolve(String browserName) {
+        String browser = browserName.toLowerCase();
+        String path = resolvedPaths.get(browser);
+        if (path == null) {
+            synchronized (resolveLock) {
+                path = resolvedPaths.get(browser);
+                if (path == null) {
+                    path = resolveShared(browser);
+                    resolvedPaths.put(browser, path);
+                }
+            }
+        }
+        System.setProperty(getSystemProperty(browser), path);
+        return path;
+    }
+
+    private String resolveShared(String browser) {
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(cacheDir);
+            try (RandomAccessFile lockFile = new RandomAccessFile(cacheDir.resolve(LOCK_FILE).toFile(), "rw");
+                 FileChannel channel = lockFile.getChannel();
+                 FileLock lock = channel.lock()) {
+                Properties cache = readCache();
+                String path = cache.getProperty(browser + ".path");
+                String version = cache.getProperty(browser + ".version");
+                long resolvedAt = Long.parseLong(cache.getProperty(browser + ".resolvedAt", "0"));
+                boolean usable = path != null && new File(path).canExecute();
+                boolean fresh = System.currentTimeMillis() - resolvedAt < ttlMillis;
+
+                if (usable && (fresh || offline)) {
+                    log.info("{} driver {} taken from cache in {} ms: {}", browser, version,
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), path);
+                    return path;
+                }
+                if (offline) {
+                    throw new IllegalStateException("driver.offline is set but no cached " + browser
+                            + " driver exists in " + cacheDir);
+                }
+                try {
+                    WebDriverManager wdm = getManager(browser);
+                    wdm.setup();
+                    path = wdm.getDownloadedDriverPath();
+                    version = wdm.getDownloadedDriverVersion();
+                } catch (RuntimeException e) {
+                    if (!usable) {
+                        throw e;
+                    }
+                    log.warn("Could not refresh {} driver, using cached one: {}", browser, e.getMessage());
+                    return path;
+                }
+                cache.setProperty(browser + ".path", path);
+                cache.setProperty(browser + ".version", String.valueOf(version));
+                cache.setProperty(browser + ".resolvedAt", String.valueOf(System.currentTimeMillis()));
+                writeCache(cache);
+                log.info("{} driver {} resolved in {} ms: {}", browser, version,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), path);
+                return path;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Driver binary cache in " + cacheDir + " is not usable", e);
+        }
+    }
+
+    private Properties readCache() throws IOException {
+        Properties cache = new Properties();
+        Path file = cacheDir.resolve(CACHE_FILE);
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                cache.load(in);
+            }
+        }
+        return cache;
+    }
+
+    private void writeCache(Properties cache) throws IOException {
+        Path tmp = Files.createTempFile(cacheDir, CACHE_FILE, ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            cache.store(out, "Resolved driver binaries");
+        }
+        Files.move(tmp, cacheDir.resolve(CACHE_FILE), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static WebDriverManager getManager(String browser) {
+        switch (browser) {
+            case "chrome":
+                return WebDriverManager.chromedriver();
+            case "firefox":
+                return WebDriverManager.firefoxdriver();
+            case "edge":
+                return WebDriverManager.edgedriver();
+            default:
+                throw new IllegalArgumentException("Browser Name is not correct: " + browser);
+        }
+    }
+
+    private static String getSystemProperty(String browser) {
+        switch (browser) {
+            case "chrome":
+                return "webdriver.chrome.driver";
+            case "firefox":
+                return "webdriver.gecko.driver";
+            case "edge":
+                return "webdriver.edge.driver";
+            default:
+                throw new IllegalArgumentException("Browser Name is not correct: " + browser);
+        }
+    }
+}
@@ -1,61 +1,296 @@
 package com.qa.opencart.factory;
 
-import io.github.bonigarcia.wdm.WebDriverManager;
+import com.qa.opencart.listeners.CommandMetricsListener;
+import com.qa.opencart.listeners.ElementCacheListener;
+import com.qa.opencart.utils.CommandMetrics;
+import com.qa.opencart.utils.ConfigManager;
+import com.qa.opencart.utils.ElementCache;
+import com.qa.opencart.utils.Log;
+import com.qa.opencart.utils.LogContext;
+import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WrapsDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.edge.EdgeDriver;
 import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.SessionId;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.IOException;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 public class DriverFactory {
+    private static final Log log = Log.get(DriverFactory.class);
     private WebDriver driver;
     private Properties prop;
     public static ThreadLocal<WebDriver> tlDriver = new ThreadLocal<>();
+    private static DriverPool driverPool;
+    private static StartupCircuitBreaker startupBreaker;
+    // immutable, so the pool's warm-up threads can use it while other threads call init_driver
+    private volatile Launcher launcher;
 
     public WebDriver init_driver(Properties prop){
-        String browserName = prop.getProperty("browserName").trim();
-        System.out.println("Browser name is: " + browserName);
-        if (browserName.equalsIgnoreCase("chrome")){
-            WebDriverManager.chromedriver().setup();
-//            driver = new ChromeDriver();
-            tlDriver.set(new ChromeDriver());
-        } else if(browserName.equalsIgnoreCase("firefox")){
-            WebDriverManager.firefoxdriver().setup();
-//            driver = new FirefoxDriver();
-            tlDriver.set(new FirefoxDriver());
-        }else if(browserName.equalsIgnoreCase("edge")){
-            WebDriverManager.edgedriver().setup();
-//            driver = new EdgeDriver();
-            tlDriver.set(new EdgeDriver());
-        } else{
-            System.out.println("Browser Name is not correct");
-        }
-        tlDriver.get().manage().window().maximize();
+        return init_driver(ConfigManager.of(prop));
+    }
+
+    /**
+     * Starts (or checks out from the pool) the driver of the current thread
+     * using the JVM wide configuration.
+     * @return
+     */
+    public WebDriver init_driver(){
+        return init_driver(ConfigManager.getInstance());
+    }
+
+    private WebDriver init_driver(ConfigManager config){
+        String browserName = config.getString("browserName");
+        log.info("Browser name is: {}", browserName);
+        Launcher launcher = launcherFor(config);
+
+        if (config.getBoolean("pool.enabled", false)) {
+            DriverPool pool = getDriverPool(launcher);
+            tlDriver.set(pool.checkout(config.getInt("pool.checkout.timeout", 60)));
+            LogContext.put(LogContext.SESSION, getSessionId(getDriver()));
+            return getDriver();
+        }
+
+        tlDriver.set(launcher.createDriver(browserName));
+        LogContext.put(LogContext.SESSION, getSessionId(getDriver()));
         tlDriver.get().manage().deleteAllCookies();
-        tlDriver.get().get(prop.getProperty("url"));
+        tlDriver.get().get(config.getString("url"));
+
+        return getDriver();
+    }
+
+    /**
+     * Returns the launcher of the configuration, built once per DriverFactory and configuration.
+     */
+    private Launcher launcherFor(ConfigManager config) {
+        Launcher current = launcher;
+        if (current == null || current.config != config) {
+            current = new Launcher(config, getStartupBreaker(config));
+            launcher = current;
+        }
+        return current;
+    }
 
+    /**
+     * Launches a new browser session for the given browser name<br/>
+     * with the options built by ManageOptions.<br/>
+     * With execution.mode = remote the session is opened on the Grid at grid.url instead of locally.<br/>
+     * The driver is decorated so navigation clears its ElementCache (ElementCacheListener) and,
+     * with metrics.enabled, every call is timed by CommandMetricsListener.<br/>
+     * Startups go through the StartupCircuitBreaker, so once browsers keep failing to start
+     * the remaining tests fail at once instead of each waiting for its own startup to fail.
+     * @param browserName chrome, firefox or edge
+     * @return
+     */
+    public WebDriver createDriver(String browserName) {
+        Launcher current = launcher;
+        return (current != null ? current : launcherFor(ConfigManager.getInstance())).createDriver(browserName);
+    }
+
+    /**
+     * Probes the driver of the current thread with one cheap command and replaces it when the
+     * session is gone (browser crash, Grid idle timeout), so the following tests of a class
+     * do not each run into timeouts against a dead session.<br/>
+     * Disabled with health.probe = false.
+     * @return the live driver, or null when no driver is bound
+     */
+    public WebDriver replaceIfDead() {
+        WebDriver driver = tlDriver.get();
+        Launcher current = launcher;
+        if (driver == null || current == null || !current.config.getBoolean("health.probe", true) || DriverPool.isAlive(driver)) {
+            return driver;
+        }
+        log.warn("Browser session is dead, starting a new one");
+        CommandMetrics.increment(CommandMetrics.SESSION_CRASHES);
+        quit_driver(true);
+        init_driver(current.config);
+        CommandMetrics.increment(CommandMetrics.SESSION_REPLACEMENTS);
         return getDriver();
     }
 
+    /**
+     * Hands the driver of the current thread back and unbinds it from the thread.<br/>
+     * Pooled sessions are reset and reused, all others are quit.
+     * @param failed true when the test using the driver failed
+     */
+    public void quit_driver(boolean failed) {
+        quit_driver(tlDriver.get(), failed);
+    }
+
+    /**
+     * Hands the given driver back, whichever thread it is bound to, and unbinds it when it is
+     * the driver of the current thread. For a driver started on another thread, e.g. a class
+     * scoped driver whose @AfterClass runs on a different thread than its @BeforeClass.
+     * @param driver
+     * @param failed true when a test using the driver failed
+     */
+    public void quit_driver(WebDriver driver, boolean failed) {
+        if (driver == null) {
+            return;
+        }
+        if (tlDriver.get() == driver) {
+            unbindDriver();
+        }
+        DriverPool pool = getPool();
+        if (pool != null) {
+            pool.release(driver, failed);
+            return;
+        }
+        ElementCache.remove(driver);
+        try {
+            driver.quit();
+        } catch (RuntimeException e) {
+            log.warn("Browser session could not be quit: {}", e.getMessage());
+        }
+    }
+
+    private static StartupCircuitBreaker getStartupBreaker(ConfigManager config) {
+        synchronized (DriverFactory.class) {
+            if (startupBreaker == null) {
+                startupBreaker = new StartupCircuitBreaker(config);
+            }
+            return startupBreaker;
+        }
+    }
+
+    private static DriverPool getDriverPool(Launcher launcher) {
+        synchronized (DriverFactory.class) {
+            if (driverPool == null) {
+                ConfigManager config = launcher.config;
+                String browserName = config.getString("browserName");
+                driverPool = new DriverPool(() -> launcher.createDriver(browserName),
+                        config.getInt("pool.size", 2),
+                        config.getInt("pool.warmup", 1),
+                        config.getInt("pool.maxreuse", 10),
+                        config.getString("url"),
+                        config.getBoolean("pool.healthcheck", true) ? DriverPool::isAlive : driver -> true);
+                Runtime.getRuntime().addShutdownHook(new Thread(driverPool::shutdown, "driver-pool-shutdown"));
+            }
+            return driverPool;
+        }
+    }
+
+    /**
+     * Returns the session pool, or null when pooling is disabled.
+     * @return
+     */
+    public static DriverPool getPool() {
+        synchronized (DriverFactory.class) {
+            return driverPool;
+        }
+    }
+
     public static WebDriver getDriver(){
         return tlDriver.get();
     }
 
-    public Properties init_properties(){
-        prop = new Properties();
-        try {
-            FileInputStream fis = new FileInputStream(".\\src\\test\\java\\com\\qa\\opencart\\resources\\config\\config.properties");
-            prop.load(fis);
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * Unbinds the driver of the current thread without quitting it.
+     */
+    public static void unbindDriver(){
+        tlDriver.remove();
+        LogContext.remove(LogContext.SESSION);
+    }
+
+    /**
+     * Returns the session id of a driver, looking through decorators, for the log context.
+     * @param driver
+     * @return null when the driver has no remote session
+     */
+    public static String getSessionId(WebDriver driver) {
+        WebDriver unwrapped = driver;
+        while (unwrapped instanceof WrapsDriver) {
+            unwrapped = ((WrapsDriver) unwrapped).getWrappedDriver();
+        }
+        if (unwrapped instanceof RemoteWebDriver) {
+            SessionId sessionId = ((RemoteWebDriver) unwrapped).getSessionId();
+            return sessionId == null ? null : sessionId.toString();
         }
+        return null;
+    }
+
+    /**
+     * Returns a copy of the configuration loaded once by ConfigManager<br/>
+     * (config.properties from the classpath, overridden by environment variables and system properties).
+     * @return
+     */
+    public Properties init_properties(){
+        prop = ConfigManager.getInstance().toProperties();
         return prop;
     }
+
+    /**
+     * Starts browser sessions for one configuration. Its collaborators are built once and never
+     * reassigned, so it can be shared with the pool's warm-up threads.
+     */
+    private static final class Launcher {
+        private final ConfigManager config;
+        private final StartupCircuitBreaker breaker;
+        private final ManageOptions manageOptions;
+        private final DriverBinaryResolver binaryResolver;
+        private final RemoteSessionFactory remoteSessionFactory;
+        private final boolean metricsEnabled;
+
+        Launcher(ConfigManager config, StartupCircuitBreaker breaker) {
+            this.config = config;
+            this.breaker = breaker;
+            this.manageOptions = new ManageOptions(config);
+            this.binaryResolver = new DriverBinaryResolver(config);
+            this.metricsEnabled = config.getBoolean("metrics.enabled", true);
+            this.remoteSessionFactory = "remote".equalsIgnoreCase(config.getString("execution.mode", "local"))
+                    ? new RemoteSessionFactory(config) : null;
+        }
+
+        WebDriver createDriver(String browserName) {
+            return breaker.call(() -> startDriver(browserName));
+        }
+
+        private WebDriver startDriver(String browserName) {
+            long start = System.nanoTime();
+            WebDriver driver;
+            if (remoteSessionFactory != null) {
+                driver = remoteSessionFactory.createSession(getCapabilities(browserName));
+            } else if (browserName.equalsIgnoreCase("chrome")){
+                binaryResolver.resolve(browserName);
+                driver = new ChromeDriver(manageOptions.getChromeOptions());
+            } else if(browserName.equalsIgnoreCase("firefox")){
+                binaryResolver.resolve(browserName);
+                driver = new FirefoxDriver(manageOptions.getFirefoxOptions());
+            }else if(browserName.equalsIgnoreCase("edge")){
+                binaryResolver.resolve(browserName);
+                driver = new EdgeDriver(manageOptions.getEdgeOptions());
+            } else{
+                log.error("Browser Name is not correct: {}", browserName);
+                throw new IllegalArgumentException("Browser Name is not correct: " + browserName);
+            }
+            if (!manageOptions.hasFixedWindowSize()) {
+                driver.manage().window().maximize();
+            }
+            log.info("{} driver started in {} ms", browserName, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            ElementCacheListener navigation = new ElementCacheListener(driver);
+            return new EventFiringDecorator(metricsEnabled
+                    ? new WebDriverListener[] {navigation, new CommandMetricsListener()}
+                    : new WebDriverListener[] {navigation}).decorate(driver);
+        }
+
+        private Capabilities getCapabilities(String browserName) {
+            switch (browserName.toLowerCase()) {
+                case "chrome":
+                    return manageOptions.getChromeOptions();
+                case "firefox":
+                    return manageOptions.getFirefoxOptions();
+                case "edge":
+                    return manageOptions.getEdgeOptions();
+                default:
+                    log.error("Browser Name is not correct: {}", browserName);
+                    throw new IllegalArgumentException("Browser Name is not correct: " + browserName);
+            }
+        }
+    }
 //
 }
@@ -0,0 +1,268 @@
+package com.qa.opencart.factory;
+
+import com.qa.opencart.utils.ConfigManager;
+import com.qa.opencart.utils.LogContext;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Runs independent page actions on several drivers at the same time, e.g. comparing the cart
+ * of two logged in users.<br/>
+ * Every action runs on a worker of its own executor (virtual threads on JDKs that have them,
+ * otherwise orchestrator.threads platform threads) with the driver bound to DriverFactory for
+ * that worker, so page objects and ElementUtils work unchanged inside the action. Its log events
+ * carry the LogContext of the submitting thread, with the session of that driver.<br/>
+ * A driver is confined to one worker at a time: actions on the same driver, or on different
+ * windows of it, queue behind a per-driver lock because a WebDriver session runs one command
+ * at a time anyway. The thread which submitted the actions must not use those drivers until
+ * the results are in.<br/>
+ * Cancelling a future, which await() does on timeout, interrupts its worker. A WebDriver command
+ * already sent to the browser is not aborted by that, so the driver of a timed out action must
+ * be quit rather than used again.
+ * <pre>
+ * try (DriverOrchestrator orchestrator = new DriverOrchestrator()) {
+ *     List&lt;String&gt; totals = orchestrator.invokeAll(Arrays.asList(buyer, admin),
+ *             driver -&gt; new CartPage().getTotal(), Duration.ofSeconds(30));
+ * }
+ * </pre>
+ */
+public class DriverOrchestrator implements AutoCloseable {
+    private static final Map<WebDriver, ReentrantLock> LOCKS =
+            Collections.synchronizedMap(new WeakHashMap<WebDriver, ReentrantLock>());
+
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+
+    /**
+     * Uses orchestrator.virtual.threads (default true) and orchestrator.threads (default 8).
+     */
+    public DriverOrchestrator() {
+        this(ConfigManager.getInstance().getBoolean("orchestrator.virtual.threads", true),
+                ConfigManager.getInstance().getInt("orchestrator.threads", 8));
+    }
+
+    /**
+     * @param preferVirtualThreads use a virtual thread per action when the JDK supports it
+     * @param platformThreads pool size when platform threads are used
+     */
+    public DriverOrchestrator(boolean preferVirtualThreads, int platformThreads) {
+        ExecutorService virtual = preferVirtualThreads ? newVirtualThreadExecutor() : null;
+        this.virtualThreads = virtual != null;
+        if (virtual != null) {
+            this.executor = virtual;
+        } else {
+            AtomicInteger count = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(Math.max(1, platformThreads), runnable -> {
+                Thread thread = new Thread(runnable, "driver-orchestrator-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() through reflection, as the framework compiles for Java 8.
+     * @return the executor, or null before JDK 21
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Runs the action with the driver on a worker.
+     * @param driver
+     * @param action gets the driver, which is also DriverFactory.getDriver() on the worker
+     * @return
+     */
+    public <T> CompletableFuture<T> submit(WebDriver driver, Function<WebDriver, T> action) {
+        return submit(driver, null, action);
+    }
+
+    /**
+     * Runs the action on the given window of the driver and switches back to the previous
+     * window afterwards.
+     * @param driver
+     * @param windowHandle the window to act on, or null for the current one
+     * @param action
+     * @return
+     */
+    public <T> CompletableFuture<T> submit(WebDriver driver, String windowHandle, Function<WebDriver, T> action) {
+        Map<String, String> context = LogContext.getAll();
+        CompletableFuture<T> result = new CompletableFuture<T>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                result.complete(runConfined(driver, windowHandle, context, action));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        // CompletableFuture.cancel does not reach the worker, Future.cancel interrupts it
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Runs the action on every driver concurrently and waits for all results.
+     * @param drivers
+     * @param action
+     * @param timeOut for all actions together
+     * @return the results in the order of the drivers
+     */
+    public <T> List<T> invokeAll(List<WebDriver> drivers, Function<WebDriver, T> action, Duration timeOut) {
+        List<CompletableFuture<T>> futures = new ArrayList<CompletableFuture<T>>();
+        for (WebDriver driver : drivers) {
+            futures.add(submit(driver, action));
+        }
+        return await(futures, timeOut);
+    }
+
+    /**
+     * Runs the action on every open window of the driver, one window after the other.
+     * @param driver
+     * @param action
+     * @param timeOut
+     * @return window handle to result
+     */
+    public <T> Map<String, T> invokeOnAllWindows(WebDriver driver, Function<WebDriver, T> action, Duration timeOut) {
+        List<String> handles = new ArrayList<String>(driver.getWindowHandles());
+        List<CompletableFuture<T>> futures = new ArrayList<CompletableFuture<T>>();
+        for (String handle : handles) {
+            futures.add(submit(driver, handle, action));
+        }
+        List<T> results = await(futures, timeOut);
+        Map<String, T> byWindow = new LinkedHashMap<String, T>();
+        for (int i = 0; i < handles.size(); i++) {
+            byWindow.put(handles.get(i), results.get(i));
+        }
+        return byWindow;
+    }
+
+    /**
+     * Waits for all futures. The first failure is thrown with the other failures added as suppressed.
+     * @param futures
+     * @param timeOut
+     * @return
+     */
+    public static <T> List<T> await(List<CompletableFuture<T>> futures, Duration timeOut) {
+        long deadline = System.nanoTime() + timeOut.toNanos();
+        List<T> results = new ArrayList<T>();
+        RuntimeException failure = null;
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+                continue;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                RuntimeException error = cause instanceof RuntimeException
+                        ? (RuntimeException) cause : new IllegalStateException(cause);
+                failure = addFailure(failure, error);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                failure = addFailure(failure, new IllegalStateException("Action did not finish within " + timeOut.toMillis()
+                        + " ms and was interrupted; quit its driver, it may still be running a command"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = addFailure(failure, new IllegalStateException("Interrupted while waiting for actions", e));
+            }
+            results.add(null);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    private static RuntimeException addFailure(RuntimeException first, RuntimeException next) {
+        if (first == null) {
+            return next;
+        }
+        first.addSuppressed(next);
+        return first;
+    }
+
+    private static <T> T runConfined(WebDriver driver, String windowHandle, Map<String, String> context,
+                                     Function<WebDriver, T> action) throws InterruptedException {
+        ReentrantLock lock = lockOf(driver);
+        // a cancelled action waiting for the driver gives up instead of running late
+        lock.lockInterruptibly();
+        WebDriver previous = DriverFactory.tlDriver.get();
+        DriverFactory.tlDriver.set(driver);
+        Map<String, String> previousContext = LogContext.getAll();
+        LogContext.setAll(context);
+        LogContext.put(LogContext.SESSION, DriverFactory.getSessionId(driver));
+        String originalWindow = null;
+        try {
+            if (windowHandle != null) {
+                originalWindow = driver.getWindowHandle();
+                if (!windowHandle.equals(originalWindow)) {
+                    driver.switchTo().window(windowHandle);
+                } else {
+                    originalWindow = null;
+                }
+            }
+            return action.apply(driver);
+        } finally {
+            try {
+                if (originalWindow != null) {
+                    driver.switchTo().window(originalWindow);
+                }
+            } finally {
+                if (previous == null) {
+                    DriverFactory.tlDriver.remove();
+                } else {
+                    DriverFactory.tlDriver.set(previous);
+                }
+                LogContext.setAll(previousContext);
+                lock.unlock();
+            }
+        }
+    }
+
+    private static ReentrantLock lockOf(WebDriver driver) {
+        synchronized (LOCKS) {
+            ReentrantLock lock = LOCKS.get(driver);
+            if (lock == null) {
+                lock = new ReentrantLock(true);
+                LOCKS.put(driver, lock);
+            }
+            return lock;
+        }
+    }
+
+    /**
+     * Stops the workers; actions still running are interrupted.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,341 @@
+package com.qa.opencart.factory;
+
+import com.qa.opencart.utils.CommandMetrics;
+import com.qa.opencart.utils.ElementCache;
+import com.qa.opencart.utils.Log;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool of pre-warmed browser sessions.<br/>
+ * A session is handed out by checkout(), reset and put back by release()<br/>
+ * and quit once it has been used maxReuse times or a test using it failed.<br/>
+ * Idle sessions are health checked before they are handed out, so a session which died while
+ * waiting (browser crash, Grid idle timeout) is replaced instead of failing the next test.
+ */
+public class DriverPool {
+    private static final Log log = Log.get(DriverPool.class);
+
+    private final Supplier<WebDriver> sessionFactory;
+    private final int maxSize;
+    private final int maxReuse;
+    private final String url;
+    private final Predicate<WebDriver> healthCheck;
+
+    private final LinkedBlockingDeque<WebDriver> idle = new LinkedBlockingDeque<>();
+    private final Map<WebDriver, AtomicInteger> useCount = new ConcurrentHashMap<>();
+    private final AtomicInteger openSessions = new AtomicInteger();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong recycled = new AtomicLong();
+    private final AtomicLong unhealthy = new AtomicLong();
+    private final AtomicLong checkouts = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * Creates the pool and starts warmUp sessions in the background.
+     * @param sessionFactory creates a new browser session
+     * @param maxSize maximum number of sessions open at the same time
+     * @param warmUp number of sessions started up front
+     * @param maxReuse number of tests a session serves before it is recycled
+     * @param url page every session is reset to
+     */
+    public DriverPool(Supplier<WebDriver> sessionFactory, int maxSize, int warmUp, int maxReuse, String url) {
+        this(sessionFactory, maxSize, warmUp, maxReuse, url, DriverPool::isAlive);
+    }
+
+    /**
+     * Creates the pool with a custom health check for idle sessions.
+     * @param sessionFactory creates a new browser session
+     * @param maxSize maximum number of sessions open at the same time
+     * @param warmUp number of sessions started up front
+     * @param maxReuse number of tests a session serves before it is recycled
+     * @param url page every session is reset to
+     * @param healthCheck returns false for a session which must not be handed out
+     */
+    public DriverPool(Supplier<WebDriver> sessionFactory, int maxSize, int warmUp, int maxReuse, String url,
+                      Predicate<WebDriver> healthCheck) {
+        this.sessionFactory = sessionFactory;
+        this.healthCheck = healthCheck;
+        this.maxSize = Math.max(1, maxSize);
+        this.maxReuse = Math.max(1, maxReuse);
+        this.url = url;
+        warmUp(Math.min(warmUp, this.maxSize));
+    }
+
+    private void warmUp(int count) {
+        for (int i = 0; i < count; i++) {
+            if (!reserveSlot()) {
+                return;
+            }
+            Thread warmer = new Thread(() -> {
+                WebDriver driver = null;
+                try {
+                    driver = newSession();
+                    driver.get(url);
+                    idle.offer(driver);
+                } catch (RuntimeException e) {
+                    log.warn("Pool warm-up failed: {}", e.getMessage());
+                    if (driver != null) {
+                        discard(driver);
+                    } else {
+                        openSessions.decrementAndGet();
+                    }
+                }
+            }, "driver-pool-warmup-" + i);
+            warmer.setDaemon(true);
+            warmer.start();
+        }
+    }
+
+    /**
+     * Returns an idle session when there is one (hit), opens a new one while
+     * the pool is below maxSize (miss), otherwise waits for a release.
+     * @param timeOut max time in seconds to wait for a free session
+     * @return
+     */
+    public WebDriver checkout(int timeOut) {
+        long start = System.nanoTime();
+        checkouts.incrementAndGet();
+        try {
+            WebDriver driver;
+            boolean replacing = false;
+            while ((driver = idle.pollFirst()) != null) {
+                if (isHealthy(driver)) {
+                    hits.incrementAndGet();
+                    return driver;
+                }
+                replacing = true;
+            }
+            if (reserveSlot()) {
+                misses.incrementAndGet();
+                return openSession(replacing);
+            }
+            long deadline = start + TimeUnit.SECONDS.toNanos(timeOut);
+            while (true) {
+                driver = idle.pollFirst(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (driver == null) {
+                    if (reserveSlot()) {
+                        // a session was discarded meanwhile
+                        misses.incrementAndGet();
+                        return openSession(false);
+                    }
+                    throw new IllegalStateException("No browser session became free within " + timeOut + " seconds");
+                }
+                if (isHealthy(driver)) {
+                    hits.incrementAndGet();
+                    return driver;
+                }
+                if (reserveSlot()) {
+                    // the dead session freed its slot, no need to wait for a release
+                    misses.incrementAndGet();
+                    return openSession(true);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a browser session", e);
+        } finally {
+            long waited = System.nanoTime() - start;
+            totalWaitNanos.addAndGet(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+        }
+    }
+
+    /**
+     * Returns the session to the pool.<br/>
+     * Sessions of failed tests, sessions used maxReuse times and sessions
+     * which cannot be reset are quit instead.
+     * @param driver
+     * @param failed true when the test using the session failed
+     */
+    public void release(WebDriver driver, boolean failed) {
+        if (driver == null) {
+            return;
+        }
+        AtomicInteger uses = useCount.get(driver);
+        if (failed || uses == null || uses.incrementAndGet() >= maxReuse || !reset(driver)) {
+            discard(driver);
+            return;
+        }
+        idle.offerFirst(driver);
+    }
+
+    /**
+     * Closes extra windows, clears cookies and web storage and navigates back to the url.
+     * @param driver
+     * @return false when the session did not survive the reset
+     */
+    private boolean reset(WebDriver driver) {
+        try {
+            Set<String> handles = driver.getWindowHandles();
+            if (handles.size() > 1) {
+                List<String> windows = new ArrayList<>(handles);
+                for (String handle : windows.subList(1, windows.size())) {
+                    driver.switchTo().window(handle).close();
+                }
+                driver.switchTo().window(windows.get(0));
+            }
+            driver.manage().deleteAllCookies();
+            if (driver instanceof JavascriptExecutor) {
+                ((JavascriptExecutor) driver).executeScript(
+                        "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+            }
+            driver.get(url);
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Browser session could not be reset: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Opens a session in a reserved slot.
+     * @param replacement true when it takes the place of a dead idle session
+     * @return
+     */
+    private WebDriver openSession(boolean replacement) {
+        WebDriver fresh;
+        try {
+            fresh = newSession();
+        } catch (RuntimeException e) {
+            openSessions.decrementAndGet();
+            throw e;
+        }
+        try {
+            fresh.get(url);
+        } catch (RuntimeException e) {
+            discard(fresh);
+            throw e;
+        }
+        if (replacement) {
+            CommandMetrics.increment(CommandMetrics.SESSION_REPLACEMENTS);
+        }
+        return fresh;
+    }
+
+    private boolean isHealthy(WebDriver driver) {
+        if (healthCheck.test(driver)) {
+            return true;
+        }
+        unhealthy.incrementAndGet();
+        CommandMetrics.increment(CommandMetrics.SESSION_CRASHES);
+        log.warn("Discarding a dead browser session from the pool");
+        discard(driver);
+        return false;
+    }
+
+    /**
+     * Default health check: one cheap command the session must answer.
+     * @param driver
+     * @return false when the session is gone
+     */
+    public static boolean isAlive(WebDriver driver) {
+        try {
+            driver.getWindowHandle();
+            return true;
+        } catch (WebDriverException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Quits the session. Only a session of this pool frees its slot, so releasing a driver twice
+     * or one the pool did not start cannot let the pool open more than maxSize sessions.
+     * @param driver
+     */
+    private void discard(WebDriver driver) {
+        if (useCount.remove(driver) != null) {
+            recycled.incrementAndGet();
+            openSessions.decrementAndGet();
+        }
+        ElementCache.remove(driver);
+        try {
+            driver.quit();
+        } catch (RuntimeException e) {
+            log.warn("Browser session could not be quit: {}", e.getMessage());
+        }
+    }
+
+    private WebDriver newSession() {
+        WebDriver driver = sessionFactory.get();
+        useCount.put(driver, new AtomicInteger());
+        return driver;
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int open = openSessions.get();
+            if (open >= maxSize) {
+                return false;
+            }
+            if (openSessions.compareAndSet(open, open + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Quits every idle session. Sessions still checked out are left alone.
+     */
+    public void shutdown() {
+        WebDriver driver;
+        while ((driver = idle.pollFirst()) != null) {
+            discard(driver);
+        }
+        log.info(getMetrics());
+        // runs in a shutdown hook, possibly after the one flushing the log
+        Log.flush(Duration.ofSeconds(5));
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getRecycled() {
+        return recycled.get();
+    }
+
+    public long getUnhealthy() {
+        return unhealthy.get();
+    }
+
+    public long getAverageWaitMillis() {
+        long count = checkouts.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get() / count);
+    }
+
+    public long getMaxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    /**
+     * Pool counters in one line, e.g. for the console at the end of the run.
+     * @return
+     */
+    public String getMetrics() {
+        return "DriverPool[hits=" + getHits() + ", misses=" + getMisses() + ", recycled=" + getRecycled()
+                + ", unhealthy=" + getUnhealthy() + ", open=" + openSessions.get() + ", avgWaitMs=" + getAverageWaitMillis()
+                + ", maxWaitMs=" + getMaxWaitMillis() + "]";
+    }
+}
@@ -1,4 +1,161 @@
 package com.qa.opencart.factory;
 
+import com.qa.opencart.utils.ConfigManager;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.ChromiumOptions;
+import org.openqa.selenium.edge.EdgeOptions;
+import org.openqa.selenium.firefox.FirefoxOptions;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the browser options from the configuration (see ConfigManager).<br/>
+ * Supported keys: headless, incognito, profile (default or fast), pageLoadStrategy
+ * (normal, eager or none), disable.images, disable.extensions, disable.gpu,
+ * window.size (e.g. 1920x1080) and disk.cache.dir.<br/>
+ * profile = fast always runs headless and defaults to eager page loads, disabled images,
+ * extensions and GPU and a 1920x1080 window; those individual keys still override it.
+ */
 public class ManageOptions {
+    private static final String FAST_PROFILE = "fast";
+    private static final String FAST_WINDOW_SIZE = "1920x1080";
+
+    private ConfigManager config;
+    private boolean fastProfile;
+
+    public ManageOptions(ConfigManager config) {
+        this.config = config;
+        this.fastProfile = FAST_PROFILE.equalsIgnoreCase(config.getString("profile", "default"));
+    }
+
+    /**
+     * Returns the Chrome options for the configured settings.
+     * @return
+     */
+    public ChromeOptions getChromeOptions() {
+        ChromeOptions co = new ChromeOptions();
+        applyChromiumOptions(co, "--incognito");
+        return co;
+    }
+
+    /**
+     * Returns the Edge options for the configured settings.
+     * @return
+     */
+    public EdgeOptions getEdgeOptions() {
+        EdgeOptions eo = new EdgeOptions();
+        applyChromiumOptions(eo, "--inprivate");
+        return eo;
+    }
+
+    /**
+     * Returns the Firefox options for the configured settings.
+     * @return
+     */
+    public FirefoxOptions getFirefoxOptions() {
+        FirefoxOptions fo = new FirefoxOptions();
+        if (isHeadless()) {
+            fo.addArguments("-headless");
+        }
+        if (isIncognito()) {
+            fo.addArguments("-private");
+        }
+        fo.setPageLoadStrategy(getPageLoadStrategy());
+        if (getBoolean("disable.images", fastProfile)) {
+            fo.addPreference("permissions.default.image", 2);
+        }
+        if (getBoolean("disable.extensions", fastProfile)) {
+            fo.addPreference("extensions.enabledScopes", 0);
+            fo.addPreference("xpinstall.enabled", false);
+        }
+        if (getBoolean("disable.gpu", fastProfile)) {
+            fo.addPreference("layers.acceleration.disabled", true);
+        }
+        int[] size = getWindowSize();
+        if (size != null) {
+            fo.addArguments("--width=" + size[0], "--height=" + size[1]);
+        }
+        String cacheDir = getProperty("disk.cache.dir", "");
+        if (!cacheDir.isEmpty()) {
+            fo.addPreference("browser.cache.disk.parent_directory", cacheDir);
+        }
+        return fo;
+    }
+
+    private void applyChromiumOptions(ChromiumOptions<?> options, String privateModeArgument) {
+        if (isHeadless()) {
+            options.addArguments("--headless");
+        }
+        if (isIncognito()) {
+            options.addArguments(privateModeArgument);
+        }
+        options.setPageLoadStrategy(getPageLoadStrategy());
+        if (getBoolean("disable.images", fastProfile)) {
+            Map<String, Object> prefs = new HashMap<String, Object>();
+            prefs.put("profile.managed_default_content_settings.images", 2);
+            options.setExperimentalOption("prefs", prefs);
+            options.addArguments("--blink-settings=imagesEnabled=false");
+        }
+        if (getBoolean("disable.extensions", fastProfile)) {
+            options.addArguments("--disable-extensions");
+        }
+        if (getBoolean("disable.gpu", fastProfile)) {
+            options.addArguments("--disable-gpu");
+        }
+        int[] size = getWindowSize();
+        if (size != null) {
+            options.addArguments("--window-size=" + size[0] + "," + size[1]);
+        }
+        String cacheDir = getProperty("disk.cache.dir", "");
+        if (!cacheDir.isEmpty()) {
+            options.addArguments("--disk-cache-dir=" + cacheDir);
+        }
+    }
+
+    public boolean isHeadless() {
+        return fastProfile || getBoolean("headless", false);
+    }
+
+    public boolean isIncognito() {
+        return getBoolean("incognito", false);
+    }
+
+    /**
+     * Returns true when a fixed window size is configured, so the driver must not be maximized.
+     * @return
+     */
+    public boolean hasFixedWindowSize() {
+        return getWindowSize() != null;
+    }
+
+    /**
+     * Parses window.size ("1920x1080") into width and height.
+     * @return
+     */
+    private int[] getWindowSize() {
+        String size = getProperty("window.size", fastProfile ? FAST_WINDOW_SIZE : "");
+        if (size.isEmpty()) {
+            return null;
+        }
+        String[] parts = size.toLowerCase().split("x");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("window.size must look like 1920x1080 but was: " + size);
+        }
+        return new int[] {Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim())};
+    }
+
+    private PageLoadStrategy getPageLoadStrategy() {
+        String strategy = getProperty("pageLoadStrategy", fastProfile ? "eager" : "normal");
+        return PageLoadStrategy.fromString(strategy.toLowerCase());
+    }
+
+    private boolean getBoolean(String key, boolean defaultValue) {
+        return config.getBoolean(key, defaultValue);
+    }
+
+    private String getProperty(String key, String defaultValue) {
+        return config.getString(key, defaultValue);
+    }
 }
@@ -0,0 +1,142 @@
+package com.qa.opencart.factory;
+
+import com.qa.opencart.utils.ConfigManager;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.LocalFileDetector;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.http.ClientConfig;
+import org.openqa.selenium.remote.http.Contents;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpMethod;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+import org.openqa.selenium.remote.http.WebSocket;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates RemoteWebDriver sessions on a Selenium Grid or standalone server (grid.url).<br/>
+ * All sessions of the JVM talk to the Grid through one shared HTTP client per Grid url, so the
+ * keep-alive connection pool is reused instead of every session opening and closing its own
+ * client. Commands time out after grid.read.timeout (default 3m).<br/>
+ * Try it against a local server: java -jar selenium-server-4.1.2.jar standalone, then run the
+ * tests with -Dexecution.mode=remote -Dgrid.url=http://localhost:4444
+ */
+public class RemoteSessionFactory {
+    private static final SharedClientFactory CLIENT_FACTORY = new SharedClientFactory(HttpClient.Factory.createDefault());
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(CLIENT_FACTORY::closeAll, "grid-client-shutdown"));
+    }
+
+    private final ClientConfig clientConfig;
+
+    public RemoteSessionFactory(ConfigManager config) {
+        String gridUrl = config.getString("grid.url", "http://localhost:4444");
+        try {
+            this.clientConfig = ClientConfig.defaultConfig()
+                    .baseUrl(new URL(gridUrl))
+                    .readTimeout(config.getDuration("grid.read.timeout", Duration.ofMinutes(3)));
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("grid.url is not a valid url: " + gridUrl, e);
+        }
+    }
+
+    /**
+     * Opens a new session on the Grid.
+     * @param capabilities e.g. the options built by ManageOptions
+     * @return
+     */
+    public WebDriver createSession(Capabilities capabilities) {
+        HttpCommandExecutor executor = new HttpCommandExecutor(Collections.emptyMap(), clientConfig, CLIENT_FACTORY);
+        try {
+            RemoteWebDriver driver = new RemoteWebDriver(executor, capabilities);
+            driver.setFileDetector(new LocalFileDetector());
+            return driver;
+        } catch (WebDriverException e) {
+            throw new IllegalStateException("Could not open a " + capabilities.getBrowserName() + " session on "
+                    + clientConfig.baseUrl() + (isGridReady() ? "" : " (the Grid is not ready)"), e);
+        }
+    }
+
+    /**
+     * Asks the Grid's /status endpoint whether it accepts new sessions.
+     * @return
+     */
+    public boolean isGridReady() {
+        try {
+            HttpResponse response = CLIENT_FACTORY.createClient(clientConfig).execute(new HttpRequest(HttpMethod.GET, "/status"));
+            if (response.getStatus() != 200) {
+                return false;
+            }
+            Map<?, ?> status = new Json().toType(Contents.string(response), Map.class);
+            Object value = status.get("value");
+            return value instanceof Map && Boolean.TRUE.equals(((Map<?, ?>) value).get("ready"));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Hands out one client per base url and configuration and ignores close() from the
+     * sessions, which would otherwise tear the client down on every quit().
+     */
+    static class SharedClientFactory implements HttpClient.Factory {
+        private final HttpClient.Factory delegate;
+        private final Map<String, HttpClient> clients = new ConcurrentHashMap<>();
+
+        SharedClientFactory(HttpClient.Factory delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public HttpClient createClient(ClientConfig config) {
+            String key = config.baseUri() + "|" + config.readTimeout() + "|" + config.connectionTimeout();
+            return clients.computeIfAbsent(key, k -> new SharedClient(delegate.createClient(config)));
+        }
+
+        @Override
+        public void cleanupIdleClients() {
+            delegate.cleanupIdleClients();
+        }
+
+        void closeAll() {
+            for (HttpClient client : clients.values()) {
+                ((SharedClient) client).client.close();
+            }
+            clients.clear();
+        }
+    }
+
+    private static class SharedClient implements HttpClient {
+        private final HttpClient client;
+
+        SharedClient(HttpClient client) {
+            this.client = client;
+        }
+
+        @Override
+        public HttpResponse execute(HttpRequest request) {
+            return client.execute(request);
+        }
+
+        @Override
+        public WebSocket openSocket(HttpRequest request, WebSocket.Listener listener) {
+            return client.openSocket(request, listener);
+        }
+
+        @Override
+        public void close() {
+            // shared by all sessions, closed by closeAll()
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.qa.opencart.factory;
+
+import com.qa.opencart.utils.ConfigManager;
+import com.qa.opencart.utils.Log;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JVM wide cache of authenticated browser sessions, keyed by user and origin of the base url.<br/>
+ * After one real login the cookies, localStorage and sessionStorage of the origin are captured;
+ * later sessions (new or pooled drivers) get them injected instead of driving the login form.<br/>
+ * Snapshots expire after session.cache.ttl (default 30m). A restored session the application
+ * rejects must be evicted by the caller, which then logs in for real (see LoginPage).<br/>
+ * session.cache.enabled = false turns restore and capture into no-ops.
+ */
+public class SessionCache {
+    private static final Log log = Log.get(SessionCache.class);
+    private static final String DUMP_STORAGE_SCRIPT =
+            "function dump(s) {"
+            + "  var o = {};"
+            + "  for (var i = 0; i < s.length; i++) { var k = s.key(i); o[k] = s.getItem(k); }"
+            + "  return o;"
+            + "}"
+            + "return [dump(window.localStorage), dump(window.sessionStorage)];";
+
+    private static final String LOAD_STORAGE_SCRIPT =
+            "var local = arguments[0], session = arguments[1];"
+            + "Object.keys(local).forEach(function (k) { window.localStorage.setItem(k, local[k]); });"
+            + "Object.keys(session).forEach(function (k) { window.sessionStorage.setItem(k, session[k]); });";
+
+    private static volatile SessionCache instance;
+
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final long ttlMillis;
+
+    public SessionCache(ConfigManager config) {
+        this.enabled = config.getBoolean("session.cache.enabled", true);
+        this.ttlMillis = config.getDuration("session.cache.ttl", Duration.ofMinutes(30)).toMillis();
+    }
+
+    /**
+     * Returns the JVM wide cache configured from ConfigManager.
+     * @return
+     */
+    public static SessionCache getInstance() {
+        SessionCache cache = instance;
+        if (cache == null) {
+            synchronized (SessionCache.class) {
+                cache = instance;
+                if (cache == null) {
+                    cache = new SessionCache(ConfigManager.getInstance());
+                    instance = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Captures the session of the logged in user. The driver must be on a page of the base url's origin.
+     * @param driver
+     * @param baseUrl
+     * @param userName
+     */
+    public void capture(WebDriver driver, String baseUrl, String userName) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Set<Cookie> cookies = new HashSet<Cookie>(driver.manage().getCookies());
+            Map<String, String> local = Collections.emptyMap();
+            Map<String, String> session = Collections.emptyMap();
+            if (driver instanceof JavascriptExecutor) {
+                Object storage = ((JavascriptExecutor) driver).executeScript(DUMP_STORAGE_SCRIPT);
+                if (storage instanceof List && ((List<?>) storage).size() == 2) {
+                    local = toStringMap(((List<?>) storage).get(0));
+                    session = toStringMap(((List<?>) storage).get(1));
+                }
+            }
+            snapshots.put(key(baseUrl, userName), new Snapshot(cookies, local, session, System.currentTimeMillis()));
+            log.info("Session of {} captured: {} cookies, {} localStorage and {} sessionStorage entries",
+                    userName, cookies.size(), local.size(), session.size());
+        } catch (WebDriverException e) {
+            log.warn("Session of {} could not be captured: {}", userName, e.getMessage());
+        }
+    }
+
+    /**
+     * Injects the cached session into the driver. Opens the base url first, as cookies and
+     * storage can only be set for the origin the browser is on; the caller navigates afterwards.
+     * @param driver
+     * @param baseUrl
+     * @param userName
+     * @return true when a fresh snapshot was injected, false when the user has to log in
+     */
+    public boolean restore(WebDriver driver, String baseUrl, String userName) {
+        if (!enabled) {
+            return false;
+        }
+        String key = key(baseUrl, userName);
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - snapshot.capturedAt > ttlMillis) {
+            snapshots.remove(key, snapshot);
+            log.info("Session of {} expired, logging in again", userName);
+            return false;
+        }
+        try {
+            driver.get(baseUrl);
+            driver.manage().deleteAllCookies();
+            Date now = new Date();
+            for (Cookie cookie : snapshot.cookies) {
+                if (cookie.getExpiry() == null || cookie.getExpiry().after(now)) {
+                    driver.manage().addCookie(cookie);
+                }
+            }
+            if (driver instanceof JavascriptExecutor && !(snapshot.local.isEmpty() && snapshot.session.isEmpty())) {
+                ((JavascriptExecutor) driver).executeScript(LOAD_STORAGE_SCRIPT, snapshot.local, snapshot.session);
+            }
+            return true;
+        } catch (WebDriverException e) {
+            log.warn("Session of {} could not be restored: {}", userName, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Drops the snapshot, e.g. when the application rejected the restored session.
+     * @param baseUrl
+     * @param userName
+     */
+    public void evict(String baseUrl, String userName) {
+        snapshots.remove(key(baseUrl, userName));
+    }
+
+    private static String key(String baseUrl, String userName) {
+        URI uri = URI.create(baseUrl);
+        return userName + '@' + uri.getScheme() + "://" + uri.getAuthority();
+    }
+
+    private static Map<String, String> toStringMap(Object value) {
+        Map<String, String> map = new HashMap<String, String>();
+        if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                map.put(String.valueOf(entry.getKey()), entry.getValue() == null ? null : String.valueOf(entry.getValue()));
+            }
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Immutable state of one logged in session.
+     */
+    private static class Snapshot {
+        private final Set<Cookie> cookies;
+        private final Map<String, String> local;
+        private final Map<String, String> session;
+        private final long capturedAt;
+
+        Snapshot(Set<Cookie> cookies, Map<String, String> local, Map<String, String> session, long capturedAt) {
+            this.cookies = Collections.unmodifiableSet(cookies);
+            this.local = local;
+            this.session = session;
+            this.capturedAt = capturedAt;
+        }
+    }
+}
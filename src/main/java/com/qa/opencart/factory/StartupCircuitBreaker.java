@@ -0,0 +1,117 @@
+package com.qa.opencart.factory;
+
+import com.qa.opencart.utils.CommandMetrics;
+import com.qa.opencart.utils.ConfigManager;
+import com.qa.opencart.utils.Log;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker around browser startup.<br/>
+ * After breaker.failure.threshold (default 3) startups in a row failed, the breaker opens and
+ * every further startup fails at once with the last startup error as cause, instead of each
+ * remaining test waiting for its own browser launch or Grid timeout. After breaker.open.duration
+ * (default 2m) one trial startup is let through: success closes the breaker, failure opens it again.<br/>
+ * Counters in CommandMetrics: startupFailures, startupFastFails and estimatedTimeSavedMs, the average
+ * duration of a failed startup for every startup which was not attempted (an estimate, not a measurement).
+ */
+public class StartupCircuitBreaker {
+    private static final Log log = Log.get(StartupCircuitBreaker.class);
+
+    private enum State {CLOSED, OPEN, HALF_OPEN}
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private RuntimeException lastFailure;
+    private long failedStartups;
+    private long failedStartupMillis;
+
+    /**
+     * Uses breaker.failure.threshold and breaker.open.duration from the configuration.
+     * @param config
+     */
+    public StartupCircuitBreaker(ConfigManager config) {
+        this(config.getInt("breaker.failure.threshold", 3),
+                config.getDuration("breaker.open.duration", Duration.ofMinutes(2)), Clock.systemUTC());
+    }
+
+    /**
+     * @param failureThreshold failed startups in a row which open the breaker; 0 or less never opens it
+     * @param openDuration time the breaker stays open before a trial startup
+     * @param clock
+     */
+    public StartupCircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openDuration.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Runs the startup unless the breaker is open.
+     * @param startup e.g. () -&gt; createDriver(browserName)
+     * @return the result of the startup
+     * @throws IllegalStateException when the breaker is open
+     */
+    public <T> T call(Supplier<T> startup) {
+        beforeCall();
+        long start = clock.millis();
+        try {
+            T result = startup.get();
+            onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            onFailure(e, clock.millis() - start);
+            throw e;
+        }
+    }
+
+    private synchronized void beforeCall() {
+        if (state == State.OPEN && clock.millis() - openedAt >= openMillis) {
+            log.info("Browser startup circuit half open, trying one startup");
+            state = State.HALF_OPEN;
+            return;
+        }
+        if (state != State.CLOSED) {
+            // open, or half open with the trial startup still running
+            CommandMetrics.increment(CommandMetrics.STARTUP_FAST_FAILS);
+            CommandMetrics.add(CommandMetrics.ESTIMATED_TIME_SAVED_MS, failedStartups == 0 ? 0 : failedStartupMillis / failedStartups);
+            throw new IllegalStateException("Browser startup circuit is open after " + consecutiveFailures
+                    + " failed startups in a row, not starting another browser", lastFailure);
+        }
+    }
+
+    private synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            log.info("Browser startup circuit closed again");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        lastFailure = null;
+    }
+
+    private synchronized void onFailure(RuntimeException e, long millis) {
+        CommandMetrics.increment(CommandMetrics.STARTUP_FAILURES);
+        failedStartups++;
+        failedStartupMillis += millis;
+        consecutiveFailures++;
+        lastFailure = e;
+        if (state == State.HALF_OPEN || (failureThreshold > 0 && consecutiveFailures >= failureThreshold)) {
+            if (state != State.OPEN) {
+                log.error("Browser startup circuit opened after {} failed startups: {}", consecutiveFailures, e.getMessage());
+            }
+            state = State.OPEN;
+            openedAt = clock.millis();
+        }
+    }
+
+    public synchronized boolean isOpen() {
+        return state != State.CLOSED;
+    }
+}
@@ -0,0 +1,70 @@
+package com.qa.opencart.listeners;
+
+import com.qa.opencart.utils.CommandMetrics;
+import org.openqa.selenium.Alert;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * WebDriverListener which times every call made through a driver decorated by
+ * DriverFactory and records it in CommandMetrics, per command type
+ * (WebDriver.get, WebElement.click, ...) and, for findElement(s), per locator.
+ */
+public class CommandMetricsListener implements WebDriverListener {
+
+    private static final ThreadLocal<Deque<Long>> startTimes = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Override
+    public void beforeAnyCall(Object target, Method method, Object[] args) {
+        startTimes.get().push(System.nanoTime());
+    }
+
+    @Override
+    public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+        record(target, method, args);
+    }
+
+    @Override
+    public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+        record(target, method, args);
+    }
+
+    private void record(Object target, Method method, Object[] args) {
+        Deque<Long> stack = startTimes.get();
+        if (stack.isEmpty()) {
+            return;
+        }
+        long elapsed = System.nanoTime() - stack.pop();
+        CommandMetrics.record(CommandMetrics.COMMAND, getTargetType(target) + "." + method.getName(), elapsed);
+        if (method.getName().startsWith("findElement") && args != null && args.length == 1 && args[0] instanceof By) {
+            CommandMetrics.record(CommandMetrics.LOCATOR, args[0].toString(), elapsed);
+        }
+    }
+
+    private static String getTargetType(Object target) {
+        if (target instanceof WebElement) {
+            return "WebElement";
+        }
+        if (target instanceof WebDriver) {
+            return "WebDriver";
+        }
+        if (target instanceof WebDriver.Navigation) {
+            return "Navigation";
+        }
+        if (target instanceof Alert) {
+            return "Alert";
+        }
+        if (target instanceof WebDriver.TargetLocator) {
+            return "TargetLocator";
+        }
+        Class<?>[] interfaces = target.getClass().getInterfaces();
+        return interfaces.length > 0 ? interfaces[0].getSimpleName() : target.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,57 @@
+package com.qa.opencart.listeners;
+
+import com.qa.opencart.utils.ElementCache;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.lang.reflect.Method;
+
+/**
+ * WebDriverListener which clears the ElementCache of its driver whenever the page or the browsing
+ * context may change through the driver: get(), navigate(), switchTo() a frame or window and
+ * click() or submit() on an element, which may leave the page.
+ */
+public class ElementCacheListener implements WebDriverListener {
+
+    private final WebDriver driver;
+
+    /**
+     * @param driver the undecorated driver whose cache is cleared
+     */
+    public ElementCacheListener(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    @Override
+    public void afterGet(WebDriver driver, String url) {
+        invalidate();
+    }
+
+    @Override
+    public void afterAnyNavigationCall(WebDriver.Navigation navigation, Method method, Object[] args, Object result) {
+        invalidate();
+    }
+
+    @Override
+    public void afterClick(WebElement element) {
+        invalidate();
+    }
+
+    @Override
+    public void afterSubmit(WebElement element) {
+        invalidate();
+    }
+
+    @Override
+    public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+        if (target instanceof WebDriver.TargetLocator
+                && !"alert".equals(method.getName()) && !"activeElement".equals(method.getName())) {
+            invalidate();
+        }
+    }
+
+    private void invalidate() {
+        ElementCache.forDriver(driver).invalidate();
+    }
+}
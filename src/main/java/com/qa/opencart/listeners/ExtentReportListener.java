@@ -0,0 +1,143 @@
+package com.qa.opencart.listeners;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.MediaEntityBuilder;
+import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+import com.qa.opencart.utils.AsyncArtifactWriter;
+import com.qa.opencart.utils.ConfigManager;
+import com.qa.opencart.utils.Log;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Extent Spark report (report.dir, default target/reports/TestExecutionReport.html).<br/>
+ * Test threads only hand events to the AsyncArtifactWriter; the report is built and written on
+ * its thread, which also writes the screenshot and page source of failed tests. The suite end
+ * waits for the queue (report.flush.timeout, default 60s) so nothing is lost.
+ */
+public class ExtentReportListener implements ITestListener, ISuiteListener, IInvokedMethodListener {
+    private static final Log log = Log.get(ExtentReportListener.class);
+    private static final String REPORT_FILE = "TestExecutionReport.html";
+
+    private final AsyncArtifactWriter writer = AsyncArtifactWriter.getInstance();
+    private final Path reportDir = Paths.get(ConfigManager.getInstance().getString("report.dir", "target/reports"));
+
+    // only used on the writer thread
+    private final ExtentReports extent = new ExtentReports();
+    private final Map<ITestResult, ExtentTest> tests = new HashMap<ITestResult, ExtentTest>();
+
+    @Override
+    public void onStart(ISuite suite) {
+        String suiteName = suite.getName();
+        writer.submit(() -> {
+            ExtentSparkReporter spark = new ExtentSparkReporter(reportDir.resolve(REPORT_FILE).toFile());
+            spark.config().setDocumentTitle("Open Cart Automation Results");
+            spark.config().setReportName(suiteName);
+            extent.attachReporter(spark);
+            extent.setSystemInfo("Browser", ConfigManager.getInstance().getString("browserName", "chrome"));
+            extent.setSystemInfo("URL", ConfigManager.getInstance().getString("url", ""));
+        });
+    }
+
+    @Override
+    public void onTestStart(ITestResult result) {
+        writer.submit(() -> getTest(result));
+    }
+
+    /**
+     * Captures the failure artifacts on the test thread, before the driver is released.
+     */
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult result) {
+        if (!method.isTestMethod() || result.getStatus() != ITestResult.FAILURE) {
+            return;
+        }
+        FailureArtifacts artifacts = FailureArtifacts.of(result);
+        String name = FailureArtifacts.fileName(result);
+        String screenshot = null;
+        if (artifacts.screenshotBase64 != null
+                && writer.writeBase64(reportDir.resolve("screenshots").resolve(name + ".png"), artifacts.screenshotBase64)) {
+            screenshot = "screenshots/" + name + ".png";
+        }
+        String pageSource = null;
+        if (artifacts.pageSource != null
+                && writer.writeText(reportDir.resolve("pagesources").resolve(name + ".html"), artifacts.pageSource)) {
+            pageSource = "pagesources/" + name + ".html";
+        }
+        String screenshotPath = screenshot;
+        String pageSourcePath = pageSource;
+        writer.submit(() -> {
+            ExtentTest test = getTest(result);
+            if (screenshotPath != null) {
+                test.info("Screenshot", MediaEntityBuilder.createScreenCaptureFromPath(screenshotPath).build());
+            }
+            if (pageSourcePath != null) {
+                test.info("<a href='" + pageSourcePath + "'>Page source</a>");
+            }
+        });
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        writer.submit(() -> end(result).pass("Test passed"));
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        writer.submit(() -> end(result).fail(result.getThrowable()));
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        writer.submit(() -> {
+            ExtentTest test = end(result);
+            if (result.getThrowable() != null) {
+                test.skip(result.getThrowable());
+            } else {
+                test.skip("Test skipped");
+            }
+        });
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        writer.submit(() -> {
+            extent.flush();
+            tests.clear();
+        });
+        Duration timeOut = ConfigManager.getInstance().getDuration("report.flush.timeout", Duration.ofSeconds(60));
+        if (writer.flush(timeOut)) {
+            log.info("Extent report written to {}{}", reportDir.resolve(REPORT_FILE).toAbsolutePath(),
+                    writer.getDropped() > 0 ? ", " + writer.getDropped() + " artifacts dropped" : "");
+        }
+    }
+
+    private ExtentTest getTest(ITestResult result) {
+        return tests.computeIfAbsent(result, r -> {
+            ExtentTest test = extent.createTest(r.getTestClass().getRealClass().getSimpleName() + " : "
+                    + r.getMethod().getMethodName(), r.getMethod().getDescription());
+            test.assignCategory(r.getMethod().getGroups());
+            test.getModel().setStartTime(new Date(r.getStartMillis()));
+            return test;
+        });
+    }
+
+    private ExtentTest end(ITestResult result) {
+        ExtentTest test = getTest(result);
+        test.getModel().setEndTime(new Date(Math.max(result.getEndMillis(), result.getStartMillis())));
+        tests.remove(result);
+        return test;
+    }
+}
@@ -0,0 +1,71 @@
+package com.qa.opencart.listeners;
+
+import com.qa.opencart.factory.DriverFactory;
+import com.qa.opencart.utils.Log;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.testng.ITestResult;
+
+/**
+ * Screenshot and page source of a failed test, taken once on the test thread while the
+ * driver still shows the failure and shared by all reporting listeners.<br/>
+ * The screenshot stays base64 encoded as the driver sent it; decoding and writing are left
+ * to the AsyncArtifactWriter.
+ */
+final class FailureArtifacts {
+    private static final Log log = Log.get(FailureArtifacts.class);
+    private static final String ATTRIBUTE = FailureArtifacts.class.getName();
+
+    final String screenshotBase64;
+    final String pageSource;
+
+    private FailureArtifacts(String screenshotBase64, String pageSource) {
+        this.screenshotBase64 = screenshotBase64;
+        this.pageSource = pageSource;
+    }
+
+    /**
+     * Returns the artifacts of the failed test, capturing them on the first call.
+     * @param result
+     * @return
+     */
+    static FailureArtifacts of(ITestResult result) {
+        synchronized (result) {
+            FailureArtifacts artifacts = (FailureArtifacts) result.getAttribute(ATTRIBUTE);
+            if (artifacts == null) {
+                artifacts = capture(DriverFactory.getDriver());
+                result.setAttribute(ATTRIBUTE, artifacts);
+            }
+            return artifacts;
+        }
+    }
+
+    /**
+     * File name stem for the artifacts of a test, e.g. LoginPageTest_loginPageTitleTest_1650000000000.
+     * @param result
+     * @return
+     */
+    static String fileName(ITestResult result) {
+        return result.getTestClass().getRealClass().getSimpleName() + '_' + result.getMethod().getMethodName()
+                + '_' + result.getEndMillis();
+    }
+
+    private static FailureArtifacts capture(WebDriver driver) {
+        if (driver == null) {
+            return new FailureArtifacts(null, null);
+        }
+        String screenshot = null;
+        String source = null;
+        try {
+            if (driver instanceof TakesScreenshot) {
+                screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BASE64);
+            }
+            source = driver.getPageSource();
+        } catch (WebDriverException e) {
+            log.warn("Failure artifacts could not be captured: {}", e.getMessage());
+        }
+        return new FailureArtifacts(screenshot, source);
+    }
+}
@@ -0,0 +1,39 @@
+package com.qa.opencart.listeners;
+
+import com.qa.opencart.factory.DriverFactory;
+import com.qa.opencart.utils.Log;
+import com.qa.opencart.utils.LogContext;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestResult;
+
+import java.time.Duration;
+
+/**
+ * Puts the running test method (or configuration method) and the browser session bound to the
+ * thread into the LogContext, so every log line can be traced back to its test when tests run
+ * in parallel. Flushes the log when the suite finishes.
+ */
+public class LogContextListener implements IInvokedMethodListener, ISuiteListener {
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult result) {
+        LogContext.put(LogContext.TEST, result.getTestClass().getRealClass().getSimpleName() + "."
+                + method.getTestMethod().getMethodName());
+        if (DriverFactory.getDriver() != null) {
+            LogContext.put(LogContext.SESSION, DriverFactory.getSessionId(DriverFactory.getDriver()));
+        }
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult result) {
+        LogContext.remove(LogContext.TEST);
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        Log.flush(Duration.ofSeconds(10));
+    }
+}
@@ -0,0 +1,37 @@
+package com.qa.opencart.listeners;
+
+import com.qa.opencart.utils.CommandMetrics;
+import com.qa.opencart.utils.ConfigManager;
+import com.qa.opencart.utils.Log;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Writes the CommandMetrics latency report (p50/p95/p99 per command, locator and
+ * page method, plus wait timeout, stale element and browser session counters) as JSON and
+ * CSV into metrics.dir (default target/metrics) when a suite finishes.
+ */
+public class MetricsReportListener implements ISuiteListener {
+    private static final Log log = Log.get(MetricsReportListener.class);
+
+    @Override
+    public void onFinish(ISuite suite) {
+        String dir = ConfigManager.getInstance().getString("metrics.dir", "target/metrics");
+        String name = "command-metrics-" + suite.getName().replaceAll("[^A-Za-z0-9._-]", "_");
+        try {
+            CommandMetrics.export(Paths.get(dir), name);
+            log.info("Command metrics written to {}.json/.csv", Paths.get(dir, name).toAbsolutePath());
+            log.info("Browser sessions: crashes={}, replacements={}, startupFailures={}, fastFails={}, estimatedTimeSavedMs={}",
+                    CommandMetrics.getCounter(CommandMetrics.SESSION_CRASHES),
+                    CommandMetrics.getCounter(CommandMetrics.SESSION_REPLACEMENTS),
+                    CommandMetrics.getCounter(CommandMetrics.STARTUP_FAILURES),
+                    CommandMetrics.getCounter(CommandMetrics.STARTUP_FAST_FAILS),
+                    CommandMetrics.getCounter(CommandMetrics.ESTIMATED_TIME_SAVED_MS));
+        } catch (IOException e) {
+            log.warn("Command metrics could not be written: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.qa.opencart.listeners;
+
+import com.qa.opencart.utils.ConfigManager;
+import com.qa.opencart.utils.Log;
+import org.testng.IAlterSuiteListener;
+import org.testng.xml.XmlSuite;
+
+import java.util.List;
+
+/**
+ * Applies parallel.mode and thread.count from the configuration to every suite,
+ * so the parallel setup can be switched per run (-Dparallel.mode=methods -Dthread.count=8)
+ * without editing testng.xml.<br/>
+ * parallel.mode: none, methods, classes, tests or instances.<br/>
+ * thread.count: a number, or auto for one thread per available core.
+ */
+public class ParallelConfigListener implements IAlterSuiteListener {
+    private static final Log log = Log.get(ParallelConfigListener.class);
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        ConfigManager config = ConfigManager.getInstance();
+        String mode = config.getString("parallel.mode", "none");
+        int threadCount = getThreadCount(config.getString("thread.count", "1"));
+
+        for (XmlSuite suite : suites) {
+            suite.setParallel(XmlSuite.ParallelMode.getValidParallel(mode));
+            suite.setThreadCount(threadCount);
+            suite.setDataProviderThreadCount(threadCount);
+            log.info("Suite {} runs with parallel={} and {} threads", suite.getName(), suite.getParallel(), threadCount);
+        }
+    }
+
+    static int getThreadCount(String value) {
+        if ("auto".equalsIgnoreCase(value)) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return Math.max(1, Integer.parseInt(value));
+    }
+}
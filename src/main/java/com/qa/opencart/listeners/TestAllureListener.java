@@ -0,0 +1,53 @@
+package com.qa.opencart.listeners;
+
+import com.qa.opencart.utils.AsyncArtifactWriter;
+import com.qa.opencart.utils.ConfigManager;
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Attaches the screenshot and page source of failed tests to the Allure results.<br/>
+ * The attachment is registered on the test thread while Allure still has the test open
+ * (afterInvocation runs before the result listeners); decoding and writing the file run
+ * on the AsyncArtifactWriter, which is flushed when the suite finishes.
+ */
+public class TestAllureListener implements IInvokedMethodListener, ISuiteListener {
+
+    private final AsyncArtifactWriter writer = AsyncArtifactWriter.getInstance();
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult result) {
+        if (!method.isTestMethod() || result.getStatus() != ITestResult.FAILURE) {
+            return;
+        }
+        FailureArtifacts artifacts = FailureArtifacts.of(result);
+        AllureLifecycle lifecycle = Allure.getLifecycle();
+        if (artifacts.screenshotBase64 != null) {
+            String source = lifecycle.prepareAttachment("Screenshot", "image/png", "png");
+            String base64 = artifacts.screenshotBase64;
+            writer.offer(() -> lifecycle.writeAttachment(source,
+                    new ByteArrayInputStream(Base64.getMimeDecoder().decode(base64))));
+        }
+        if (artifacts.pageSource != null) {
+            String source = lifecycle.prepareAttachment("Page source", "text/html", "html");
+            String pageSource = artifacts.pageSource;
+            writer.offer(() -> lifecycle.writeAttachment(source,
+                    new ByteArrayInputStream(pageSource.getBytes(StandardCharsets.UTF_8))));
+        }
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        writer.flush(ConfigManager.getInstance().getDuration("report.flush.timeout", Duration.ofSeconds(60)));
+    }
+}
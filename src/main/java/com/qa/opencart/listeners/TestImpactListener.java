@@ -0,0 +1,104 @@
+package com.qa.opencart.listeners;
+
+import com.qa.opencart.utils.ConfigManager;
+import com.qa.opencart.utils.GitChanges;
+import com.qa.opencart.utils.Log;
+import com.qa.opencart.utils.TestImpactIndex;
+import org.testng.IAlterSuiteListener;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Runs only the test classes affected by the changes against impact.base.ref (default origin/main),
+ * committed or not, as found by TestImpactIndex in the compiled classes (impact.class.dirs).<br/>
+ * Changes to the impact.full.suite.classes (DriverFactory, BaseTest, ConfigManager by default),
+ * to non-Java files under src/main or src/test or to pom.xml run the full suite, as does any
+ * error while reading the diff or the classes.<br/>
+ * Off by default; enable it per run: mvn test -Dimpact.enabled=true -Dimpact.base.ref=origin/main<br/>
+ * Register it before TestScheduleListener, so the remaining classes are what gets sharded.
+ */
+public class TestImpactListener implements IAlterSuiteListener {
+    private static final Log log = Log.get(TestImpactListener.class);
+    private static final String DEFAULT_FULL_SUITE_CLASSES = "com.qa.opencart.factory.DriverFactory,"
+            + "com.qa.opencart.tests.BaseTest,com.qa.opencart.utils.ConfigManager";
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        ConfigManager config = ConfigManager.getInstance();
+        if (!config.getBoolean("impact.enabled", false)) {
+            return;
+        }
+        String baseRef = config.getString("impact.base.ref", "origin/main");
+        Set<String> testClasses = new LinkedHashSet<String>();
+        for (XmlSuite suite : suites) {
+            for (XmlTest test : suite.getTests()) {
+                for (XmlClass xmlClass : test.getXmlClasses()) {
+                    testClasses.add(xmlClass.getName());
+                }
+            }
+        }
+        TestImpactIndex.Selection selection;
+        try {
+            long start = System.nanoTime();
+            List<Path> classDirs = new ArrayList<Path>();
+            for (String dir : config.getString("impact.class.dirs", "target/classes,target/test-classes").split(",")) {
+                classDirs.add(Paths.get(dir.trim()));
+            }
+            TestImpactIndex index = TestImpactIndex.scan(classDirs);
+            selection = index.select(testClasses, GitChanges.read(baseRef), getFullSuiteClasses(config));
+            log.info("Impact analysis against {} of {} classes took {} ms, {}", baseRef, index.size(),
+                    (System.nanoTime() - start) / 1_000_000, selection.getReason());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Impact analysis failed, running the full suite: {}", e.getMessage());
+            return;
+        }
+        if (selection.isFullSuite()) {
+            log.info("Running the full suite");
+            return;
+        }
+        log.info("Running {} of {} test classes: {}", selection.getTests().size(), testClasses.size(), selection.getTests());
+        for (XmlSuite suite : suites) {
+            keepSelected(suite, selection.getTests());
+        }
+    }
+
+    private static Set<String> getFullSuiteClasses(ConfigManager config) {
+        Set<String> classes = new HashSet<String>();
+        for (String name : Arrays.asList(config.getString("impact.full.suite.classes", DEFAULT_FULL_SUITE_CLASSES).split(","))) {
+            if (!name.trim().isEmpty()) {
+                classes.add(name.trim());
+            }
+        }
+        return classes;
+    }
+
+    private static void keepSelected(XmlSuite suite, Set<String> selected) {
+        Iterator<XmlTest> tests = suite.getTests().iterator();
+        while (tests.hasNext()) {
+            XmlTest test = tests.next();
+            List<XmlClass> kept = new ArrayList<XmlClass>();
+            for (XmlClass xmlClass : test.getXmlClasses()) {
+                if (selected.contains(xmlClass.getName())) {
+                    kept.add(xmlClass);
+                }
+            }
+            if (kept.isEmpty()) {
+                tests.remove();
+            } else {
+                test.setXmlClasses(kept);
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.qa.opencart.listeners;
+
+import com.qa.opencart.utils.ConfigManager;
+import com.qa.opencart.utils.Log;
+import com.qa.opencart.utils.TestDurationHistory;
+import com.qa.opencart.utils.TestScheduler;
+import org.testng.IAlterSuiteListener;
+import org.testng.IConfigurationListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Schedules test classes by the durations of earlier runs (schedule.history.file,
+ * default .test-history/test-durations.properties) and records the durations of this run.<br/>
+ * With shard.count &gt; 1 the classes of the suite are split into that many shards of about
+ * equal expected time (longest processing time first) and only shard shard.index runs, e.g.
+ * one shard per surefire fork or CI job: -Dshard.count=3 -Dshard.index=0.<br/>
+ * Within a shard the classes of every &lt;test&gt; are ordered longest first, so with
+ * parallel=classes the thread pool picks them up in LPT order and the threads finish together.<br/>
+ * schedule.enabled = false keeps the testng.xml order and does not record anything.
+ */
+public class TestScheduleListener implements IAlterSuiteListener, ISuiteListener, ITestListener, IConfigurationListener {
+    private static final Log log = Log.get(TestScheduleListener.class);
+    private static final String DEFAULT_HISTORY_FILE = ".test-history/test-durations.properties";
+
+    private final Map<String, Long> classMillis = new ConcurrentHashMap<>();
+    private final Map<String, Long> methodMillis = new ConcurrentHashMap<>();
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        ConfigManager config = ConfigManager.getInstance();
+        if (!config.getBoolean("schedule.enabled", true)) {
+            return;
+        }
+        TestDurationHistory history = TestDurationHistory.load(getHistoryFile());
+        int shardCount = config.getInt("shard.count", 1);
+        int shardIndex = config.getInt("shard.index", 0);
+        if (shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("shard.index must be between 0 and " + (shardCount - 1) + ": " + shardIndex);
+        }
+        if (history.isEmpty()) {
+            log.info("No test duration history yet, classes are scheduled in testng.xml order");
+        }
+        for (XmlSuite suite : suites) {
+            if (shardCount > 1) {
+                keepShard(suite, history, shardCount, shardIndex);
+            }
+            for (XmlTest test : suite.getTests()) {
+                orderLongestFirst(test, history, Math.max(1, suite.getThreadCount()));
+            }
+        }
+    }
+
+    private void keepShard(XmlSuite suite, TestDurationHistory history, int shardCount, int shardIndex) {
+        Set<String> classNames = new LinkedHashSet<String>();
+        for (XmlTest test : suite.getTests()) {
+            for (XmlClass xmlClass : test.getXmlClasses()) {
+                classNames.add(xmlClass.getName());
+            }
+        }
+        Map<String, Long> estimates = TestScheduler.estimate(classNames, history);
+        List<List<String>> shards = TestScheduler.pack(estimates, shardCount);
+        Set<String> shard = new LinkedHashSet<String>(shards.get(shardIndex));
+        log.info("Shard {}/{} of suite {} runs {} of {} classes, expected {} ms for the slowest shard", shardIndex, shardCount,
+                suite.getName(), shard.size(), classNames.size(), TestScheduler.makespan(shards, estimates));
+
+        Iterator<XmlTest> tests = suite.getTests().iterator();
+        while (tests.hasNext()) {
+            XmlTest test = tests.next();
+            List<XmlClass> kept = new ArrayList<XmlClass>();
+            for (XmlClass xmlClass : test.getXmlClasses()) {
+                if (shard.contains(xmlClass.getName())) {
+                    kept.add(xmlClass);
+                }
+            }
+            if (kept.isEmpty()) {
+                tests.remove();
+            } else {
+                test.setXmlClasses(kept);
+            }
+        }
+    }
+
+    private void orderLongestFirst(XmlTest test, TestDurationHistory history, int threadCount) {
+        Map<String, XmlClass> byName = new HashMap<String, XmlClass>();
+        for (XmlClass xmlClass : test.getXmlClasses()) {
+            byName.put(xmlClass.getName(), xmlClass);
+        }
+        Map<String, Long> estimates = TestScheduler.estimate(namesInOrder(test), history);
+        List<XmlClass> ordered = new ArrayList<XmlClass>();
+        for (String className : TestScheduler.longestFirst(estimates)) {
+            ordered.add(byName.get(className));
+        }
+        test.setXmlClasses(ordered);
+        if (!history.isEmpty() && ordered.size() > 1) {
+            log.info("Test {}: {} classes longest first, expected {} ms on {} threads", test.getName(), ordered.size(),
+                    TestScheduler.makespan(TestScheduler.pack(estimates, threadCount), estimates), threadCount);
+        }
+    }
+
+    private static List<String> namesInOrder(XmlTest test) {
+        List<String> names = new ArrayList<String>();
+        for (XmlClass xmlClass : test.getXmlClasses()) {
+            names.add(xmlClass.getName());
+        }
+        return names;
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        record(result);
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        record(result);
+    }
+
+    @Override
+    public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
+        record(result);
+    }
+
+    /**
+     * Set up and tear down (e.g. starting the browser) count for the class, not for a method.
+     * @param result
+     */
+    @Override
+    public void onConfigurationSuccess(ITestResult result) {
+        classMillis.merge(result.getTestClass().getName(), getMillis(result), Long::sum);
+    }
+
+    @Override
+    public void onConfigurationFailure(ITestResult result) {
+        classMillis.merge(result.getTestClass().getName(), getMillis(result), Long::sum);
+    }
+
+    private void record(ITestResult result) {
+        long millis = getMillis(result);
+        String className = result.getTestClass().getName();
+        classMillis.merge(className, millis, Long::sum);
+        methodMillis.merge(className + '.' + result.getMethod().getMethodName(), millis, Long::sum);
+    }
+
+    private static long getMillis(ITestResult result) {
+        return Math.max(0, result.getEndMillis() - result.getStartMillis());
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        if (!ConfigManager.getInstance().getBoolean("schedule.enabled", true) || classMillis.isEmpty()) {
+            return;
+        }
+        Path file = getHistoryFile();
+        try {
+            TestDurationHistory.load(file).record(new HashMap<String, Long>(classMillis), new HashMap<String, Long>(methodMillis));
+            log.info("Test durations of {} classes recorded in {}", classMillis.size(), file.toAbsolutePath());
+        } catch (IOException e) {
+            log.warn("Test durations could not be recorded: {}", e.getMessage());
+        }
+        classMillis.clear();
+        methodMillis.clear();
+    }
+
+    private static Path getHistoryFile() {
+        return Paths.get(ConfigManager.getInstance().getString("schedule.history.file", DEFAULT_HISTORY_FILE));
+    }
+}
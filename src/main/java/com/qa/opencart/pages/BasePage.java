@@ -0,0 +1,59 @@
+package com.qa.opencart.pages;
+
+import com.qa.opencart.factory.DriverFactory;
+import com.qa.opencart.utils.ElementUtils;
+import com.qa.opencart.utils.PageElementFactory;
+import com.qa.opencart.utils.PageState;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.List;
+
+/**
+ * Base class of the page objects.<br/>
+ * Fields annotated with &#64;FindBy become lazy proxies (see PageElementFactory) which always act
+ * on the driver of the calling thread, so a page never keeps a driver and one instance can be
+ * shared by tests running in parallel.
+ */
+public abstract class BasePage {
+    private final List<By> elementLocators;
+
+    protected BasePage() {
+        this.elementLocators = PageElementFactory.initElements(this, DriverFactory::getDriver);
+    }
+
+    protected WebDriver driver() {
+        return DriverFactory.getDriver();
+    }
+
+    protected ElementUtils elementUtils() {
+        return new ElementUtils(driver());
+    }
+
+    /**
+     * Returns the locator of a &#64;FindBy field, e.g. to build the field map of ElementUtils.doFillForm.
+     * @param element
+     * @return
+     */
+    protected By locatorOf(WebElement element) {
+        return PageElementFactory.getLocator(element);
+    }
+
+    /**
+     * Resolves all declared elements of the page in one JavaScript call, e.g. right after navigating to it.
+     * @return the number of elements found, or -1 when the batch lookup is not possible
+     */
+    public int preloadElements() {
+        return PageElementFactory.preload(driver(), elementLocators);
+    }
+
+    /**
+     * Takes a PageState snapshot (title, url, readyState and the given elements) in one call.
+     * @param query e.g. PageState.query().element(locatorOf(loginButton))
+     * @return
+     */
+    protected PageState capturePageState(PageState.Query query) {
+        return query.capture(driver());
+    }
+}
@@ -1,21 +1,48 @@
 package com.qa.opencart.pages;
 
-import com.qa.opencart.factory.DriverFactory;
-import com.qa.opencart.utils.ElementUtils;
+import com.qa.opencart.factory.SessionCache;
+import com.qa.opencart.utils.CommandMetrics;
+import com.qa.opencart.utils.ConfigManager;
+import com.qa.opencart.utils.Constants;
+import com.qa.opencart.utils.Log;
+import com.qa.opencart.utils.PageState;
 import org.openqa.selenium.By;
-import org.openqa.selenium.WebDriver;
-import org.testng.annotations.Test;
-
-public class LoginPage {
-    private WebDriver driver;
-    ElementUtils elementUtils;
-
-    //By Locators
-    private By emailField = By.id("input-email");
-    private By passwordField = By.id("input-password");
-    private By loginButton = By.xpath("//input[@class='btn btn-primary']");
-    private By forgottenPasswordLink = By.cssSelector(".form-group a");
-    private By registerLink = By.linkText("Register");
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.FindBy;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The page never keeps a driver: every action uses the driver bound to the
+ * calling thread, so one instance can be shared by tests running in parallel.
+ */
+public class LoginPage extends BasePage {
+    private static final Log log = Log.get(LoginPage.class);
+
+    /**
+     * Outcome of doLoginWithCachedSession.
+     */
+    public enum LoginResult {
+        /** the cached session was restored and accepted */
+        CACHED_SESSION,
+        /** logged in through the login form */
+        FORM,
+        /** the login form did not lead to the accounts page */
+        FAILED
+    }
+
+    //Page elements, resolved lazily on first use
+    @FindBy(id = "input-email")
+    private WebElement emailField;
+    @FindBy(id = "input-password")
+    private WebElement passwordField;
+    @FindBy(xpath = "//input[@class='btn btn-primary']")
+    private WebElement loginButton;
+    @FindBy(css = ".form-group a")
+    private WebElement forgottenPasswordLink;
+    @FindBy(linkText = "Register")
+    private WebElement registerLink;
     //Adding dummy comment for the commit to develop branch
 
 //    public LoginPage(WebDriver driver) {
@@ -23,29 +50,95 @@ public class LoginPage {
 //    }
 
     public LoginPage() {
-        driver = DriverFactory.getDriver();
-//        elementUtils = new ElementUtils(driver);
-
+        super();
     }
 
 //    public action methods
     public String getLoginPageTitle(){
-        String Title = driver.getTitle();
-        System.out.println("Login Page Title is: " + Title);
-        return Title;
+        return CommandMetrics.timePage("LoginPage.getLoginPageTitle", () -> {
+            String Title = driver().getTitle();
+            log.info("Login Page Title is: {}", Title);
+            return Title;
+        });
     }
 
     public String getLoginPageUrl(){
-        String url = driver.getCurrentUrl();
-        System.out.println("Login Page URL is: " + url);
-        return url;
+        return CommandMetrics.timePage("LoginPage.getLoginPageUrl", () -> {
+            String url = driver().getCurrentUrl();
+            log.info("Login Page URL is: {}", url);
+            return url;
+        });
+    }
+
+    /**
+     * Title, url, readiness and the state of the login form in one round trip.<br/>
+     * Contains the email, password and login button fields and the text of the forgotten password link.
+     * @return
+     */
+    public PageState getLoginPageState(){
+        return CommandMetrics.timePage("LoginPage.getLoginPageState", () -> capturePageState(PageState.query()
+                .element(locatorOf(emailField), locatorOf(passwordField), locatorOf(loginButton))
+                .elementWithText(locatorOf(forgottenPasswordLink))));
+    }
+
+    /**
+     * Fills email and password in one scripted call and clicks the login button.
+     * @param userName
+     * @param password
+     */
+    public void doLogin(String userName, String password) {
+        CommandMetrics.timePage("LoginPage.doLogin", () -> {
+            log.info("Login with: {}", userName);
+            Map<By, String> credentials = new LinkedHashMap<By, String>();
+            credentials.put(locatorOf(emailField), userName);
+            credentials.put(locatorOf(passwordField), password);
+            elementUtils().doFillForm(credentials);
+            loginButton.click();
+        });
+    }
+
+    /**
+     * Logs in by restoring the session cached for the user and falls back to the login form
+     * when there is none, it expired or the application rejects it.<br/>
+     * The browser ends up on the accounts page unless the login failed; only a successful
+     * form login is captured for later tests.
+     * @param userName
+     * @param password
+     * @return how the user got logged in, or FAILED when the accounts page was not reached
+     */
+    public LoginResult doLoginWithCachedSession(String userName, String password) {
+        return CommandMetrics.timePage("LoginPage.doLoginWithCachedSession", () -> {
+            SessionCache sessions = SessionCache.getInstance();
+            String loginUrl = ConfigManager.getInstance().getString("url");
+            String accountsUrl = loginUrl.replace(Constants.LOGIN_PAGE_URL_FRACTION, Constants.ACCOUNTS_PAGE_URL_FRACTION);
+
+            if (sessions.restore(driver(), loginUrl, userName)) {
+                driver().get(accountsUrl);
+                if (driver().getCurrentUrl().contains(Constants.ACCOUNTS_PAGE_URL_FRACTION)) {
+                    log.info("Logged in with the cached session of: {}", userName);
+                    return LoginResult.CACHED_SESSION;
+                }
+                log.info("Cached session of {} was rejected, logging in again", userName);
+                sessions.evict(loginUrl, userName);
+                driver().manage().deleteAllCookies();
+            }
+            if (!driver().getCurrentUrl().contains(Constants.LOGIN_PAGE_URL_FRACTION)) {
+                driver().get(loginUrl);
+            }
+            doLogin(userName, password);
+            if (elementUtils().waitForUrlContains(Constants.ACCOUNTS_PAGE_URL_FRACTION, Constants.DEFAULT_TIME_OUT) == null) {
+                log.warn("Login of {} did not reach the accounts page", userName);
+                return LoginResult.FAILED;
+            }
+            sessions.capture(driver(), loginUrl, userName);
+            return LoginResult.FORM;
+        });
     }
 
     //Dummy code added here
     public void isForgotPasswordLinkExist(){
-        System.out.println("Dummy code added here");
+        log.debug("Dummy code added here");
     }
 
 
 }
-
@@ -0,0 +1,180 @@
+package com.qa.opencart.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single background thread which takes report work (screenshots, page sources, report updates)
+ * off the test threads.<br/>
+ * Tasks wait in a bounded queue (report.queue.size, default 1024) and are run in batches of up
+ * to 64 in submission order, so report updates need no locking. Artifacts are dropped and
+ * counted when the queue is full, so a slow disk never blocks a test; report updates wait for
+ * space instead, because losing them would corrupt the report.<br/>
+ * flush() waits until everything submitted so far is done; a shutdown hook flushes on exit.
+ */
+public final class AsyncArtifactWriter {
+    private static final Log log = Log.get(AsyncArtifactWriter.class);
+    private static final int BATCH_SIZE = 64;
+
+    private static volatile AsyncArtifactWriter instance;
+
+    private final BlockingQueue<Runnable> queue;
+    private final Object doneLock = new Object();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private long completed;
+
+    private AsyncArtifactWriter(int capacity) {
+        this.queue = new ArrayBlockingQueue<Runnable>(capacity);
+        Thread worker = new Thread(this::drain, "artifact-writer");
+        worker.setDaemon(true);
+        worker.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(Duration.ofSeconds(10)), "artifact-writer-flush"));
+    }
+
+    /**
+     * Returns the JVM wide writer, starting its thread on first use.
+     * @return
+     */
+    public static AsyncArtifactWriter getInstance() {
+        AsyncArtifactWriter writer = instance;
+        if (writer == null) {
+            synchronized (AsyncArtifactWriter.class) {
+                writer = instance;
+                if (writer == null) {
+                    writer = new AsyncArtifactWriter(ConfigManager.getInstance().getInt("report.queue.size", 1024));
+                    instance = writer;
+                }
+            }
+        }
+        return writer;
+    }
+
+    /**
+     * Queues a report update, waiting for space when the queue is full.
+     * @param task
+     */
+    public void submit(Runnable task) {
+        submitted.incrementAndGet();
+        try {
+            queue.put(task);
+        } catch (InterruptedException e) {
+            submitted.decrementAndGet();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues an artifact write without ever blocking.
+     * @param task
+     * @return false when the queue is full and the artifact was dropped
+     */
+    public boolean offer(Runnable task) {
+        submitted.incrementAndGet();
+        if (queue.offer(task)) {
+            return true;
+        }
+        submitted.decrementAndGet();
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Decodes a base64 screenshot and writes it, both on the writer thread.
+     * @param file
+     * @param base64
+     * @return false when the artifact was dropped
+     */
+    public boolean writeBase64(Path file, String base64) {
+        return offer(() -> write(file, Base64.getMimeDecoder().decode(base64)));
+    }
+
+    /**
+     * Writes a text artifact such as a page source as UTF-8.
+     * @param file
+     * @param text
+     * @return false when the artifact was dropped
+     */
+    public boolean writeText(Path file, String text) {
+        return offer(() -> write(file, text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Waits until every task submitted before the call has run.
+     * @param timeOut
+     * @return false when the timeout elapsed first
+     */
+    public boolean flush(Duration timeOut) {
+        long target = submitted.get();
+        long deadline = System.nanoTime() + timeOut.toNanos();
+        synchronized (doneLock) {
+            while (completed < target) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    log.warn("Artifact writer flush timed out with {} tasks left", target - completed);
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(doneLock, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    private void drain() {
+        List<Runnable> batch = new ArrayList<Runnable>(BATCH_SIZE);
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, BATCH_SIZE - 1);
+            for (Runnable task : batch) {
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    failed.incrementAndGet();
+                    log.warn("Report artifact could not be written: {}", t);
+                }
+            }
+            synchronized (doneLock) {
+                completed += batch.size();
+                doneLock.notifyAll();
+            }
+            batch.clear();
+        }
+    }
+
+    private static void write(Path file, byte[] data) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Files.write(file, data);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write " + file, e);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.qa.opencart.utils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Ring buffer between the threads that log and one writer thread, which formats the events
+ * and writes them in batches of up to 256 lines with a single console write.<br/>
+ * A logging thread claims a slot with one compare-and-set and never blocks or takes a lock:
+ * when the buffer is full the event is dropped and counted, and the writer reports the number
+ * of dropped events with its next batch. The writer parks while the buffer is empty and is
+ * woken by the next event.
+ */
+public final class AsyncLogAppender {
+    private static final int BATCH_SIZE = 256;
+    private static final long IDLE_PARK_NANOS = 100_000_000L;
+
+    private final AtomicReferenceArray<LogEvent> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Consumer<String> sink;
+    private final Thread writer;
+
+    private volatile long head;
+    private volatile long written;
+    private volatile boolean writerParked;
+    private long reportedDropped;
+
+    /**
+     * Writes to System.out.
+     * @param capacity number of events the buffer holds, rounded up to a power of two
+     */
+    public AsyncLogAppender(int capacity) {
+        this(capacity, text -> {
+            System.out.print(text);
+            System.out.flush();
+        });
+    }
+
+    /**
+     * @param capacity number of events the buffer holds, rounded up to a power of two
+     * @param sink gets the formatted lines of each batch as one string, on the writer thread
+     */
+    public AsyncLogAppender(int capacity, Consumer<String> sink) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.slots = new AtomicReferenceArray<LogEvent>(size);
+        this.mask = size - 1;
+        this.sink = sink;
+        this.writer = new Thread(this::drain, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Publishes the event for the writer thread.
+     * @param event
+     * @return false when the buffer is full and the event was dropped
+     */
+    boolean append(LogEvent event) {
+        long slot;
+        do {
+            slot = tail.get();
+            if (slot - head >= slots.length()) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!tail.compareAndSet(slot, slot + 1));
+        slots.lazySet((int) (slot & mask), event);
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    /**
+     * Waits until every event appended before the call has been written.
+     * @param timeOut
+     * @return false when the timeout elapsed first
+     */
+    public boolean flush(Duration timeOut) {
+        long target = tail.get();
+        long deadline = System.nanoTime() + timeOut.toNanos();
+        while (written < target) {
+            if (System.nanoTime() - deadline >= 0 || Thread.currentThread() == writer) {
+                return false;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(this, 1_000_000L);
+        }
+        return true;
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private void drain() {
+        StringBuilder text = new StringBuilder(16384);
+        while (true) {
+            long first = head;
+            long next = first;
+            while (next - first < BATCH_SIZE) {
+                int index = (int) (next & mask);
+                LogEvent event = slots.get(index);
+                if (event == null) {
+                    break;
+                }
+                slots.lazySet(index, null);
+                event.format(text);
+                next++;
+            }
+            if (next == first) {
+                if (tail.get() != first) {
+                    // a slot is claimed but its event not yet published
+                    Thread.yield();
+                    continue;
+                }
+                writerParked = true;
+                if (tail.get() == first) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                writerParked = false;
+                continue;
+            }
+            head = next;
+            long droppedNow = dropped.get();
+            if (droppedNow != reportedDropped) {
+                text.append(droppedNow - reportedDropped)
+                        .append(" log events dropped, the log buffer was full (log.buffer.size)")
+                        .append(System.lineSeparator());
+                reportedDropped = droppedNow;
+            }
+            try {
+                sink.accept(text.toString());
+            } catch (RuntimeException e) {
+                // the console is gone, nothing left to report to
+            }
+            text.setLength(0);
+            written = next;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.qa.opencart.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * JVM wide registry of latency histograms and counters.<br/>
+ * Categories used by the framework:
+ * <ul>
+ *     <li>command: every WebDriver / WebElement call, e.g. WebElement.click</li>
+ *     <li>locator: findElement(s) calls per By</li>
+ *     <li>page: page object methods timed with timePage()</li>
+ *     <li>condition: evaluations of the named conditions of a MultiConditionWait</li>
+ * </ul>
+ * Counters: waitTimeouts and staleElementRetries; for browser sessions sessionCrashes,
+ * sessionReplacements, startupFailures, startupFastFails and estimatedTimeSavedMs, an estimate:
+ * every fast failed startup counted at the average duration of the startups which really failed.
+ */
+public class CommandMetrics {
+    public static final String COMMAND = "command";
+    public static final String LOCATOR = "locator";
+    public static final String PAGE = "page";
+    public static final String CONDITION = "condition";
+
+    public static final String WAIT_TIMEOUTS = "waitTimeouts";
+    public static final String STALE_RETRIES = "staleElementRetries";
+    public static final String SESSION_CRASHES = "sessionCrashes";
+    public static final String SESSION_REPLACEMENTS = "sessionReplacements";
+    public static final String STARTUP_FAILURES = "startupFailures";
+    public static final String STARTUP_FAST_FAILS = "startupFastFails";
+    public static final String ESTIMATED_TIME_SAVED_MS = "estimatedTimeSavedMs";
+
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Records a latency for the category and key, e.g. ("command", "WebElement.click").
+     * @param category
+     * @param key
+     * @param nanos
+     */
+    public static void record(String category, String key, long nanos) {
+        histograms.computeIfAbsent(category + '|' + key, k -> new LatencyHistogram()).record(nanos);
+    }
+
+    /**
+     * Increments a counter such as waitTimeouts.
+     * @param counter
+     */
+    public static void increment(String counter) {
+        counters.computeIfAbsent(counter, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Adds to a counter such as estimatedTimeSavedMs.
+     * @param counter
+     * @param delta
+     */
+    public static void add(String counter, long delta) {
+        counters.computeIfAbsent(counter, k -> new AtomicLong()).addAndGet(delta);
+    }
+
+    public static long getCounter(String counter) {
+        AtomicLong value = counters.get(counter);
+        return value == null ? 0 : value.get();
+    }
+
+    /**
+     * Returns the histogram of the category and key, or null when nothing was recorded.
+     * @param category
+     * @param key
+     * @return
+     */
+    public static LatencyHistogram getHistogram(String category, String key) {
+        return histograms.get(category + '|' + key);
+    }
+
+    /**
+     * Runs a page object action and records its duration in the page category.
+     * @param pageMethod e.g. LoginPage.getLoginPageTitle
+     * @param action
+     * @return the result of the action
+     */
+    public static <T> T timePage(String pageMethod, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            record(PAGE, pageMethod, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Runs a page object action without a result and records its duration in the page category.
+     * @param pageMethod
+     * @param action
+     */
+    public static void timePage(String pageMethod, Runnable action) {
+        timePage(pageMethod, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Writes all histograms, slowest total time first, and the counters to
+     * name.json and name.csv in the directory.
+     * @param dir
+     * @param name
+     * @throws IOException
+     */
+    public static void export(Path dir, String name) throws IOException {
+        Files.createDirectories(dir);
+        List<Map.Entry<String, LatencyHistogram>> entries = new ArrayList<>(histograms.entrySet());
+        entries.sort(Comparator.comparingDouble(
+                (Map.Entry<String, LatencyHistogram> e) -> e.getValue().getTotalMillis()).reversed());
+
+        try (Writer csv = Files.newBufferedWriter(dir.resolve(name + ".csv"), StandardCharsets.UTF_8)) {
+            csv.write("category,key,count,totalMs,meanMs,p50Ms,p95Ms,p99Ms,maxMs\n");
+            for (Map.Entry<String, LatencyHistogram> e : entries) {
+                String[] parts = e.getKey().split("\\|", 2);
+                LatencyHistogram h = e.getValue();
+                csv.write(String.format(Locale.ROOT, "%s,%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f%n",
+                        parts[0], csvEscape(parts[1]), h.getCount(), h.getTotalMillis(), h.getMeanMillis(),
+                        h.getPercentileMillis(50), h.getPercentileMillis(95), h.getPercentileMillis(99),
+                        h.getMaxMillis()));
+            }
+        }
+
+        try (Writer json = Files.newBufferedWriter(dir.resolve(name + ".json"), StandardCharsets.UTF_8)) {
+            json.write("{\n  \"counters\": {");
+            String separator = "";
+            for (Map.Entry<String, AtomicLong> c : counters.entrySet()) {
+                json.write(separator + "\n    \"" + jsonEscape(c.getKey()) + "\": " + c.getValue().get());
+                separator = ",";
+            }
+            json.write("\n  },\n  \"latencies\": [");
+            separator = "";
+            for (Map.Entry<String, LatencyHistogram> e : entries) {
+                String[] parts = e.getKey().split("\\|", 2);
+                LatencyHistogram h = e.getValue();
+                json.write(separator);
+                json.write(String.format(Locale.ROOT, "%n    {\"category\": \"%s\", \"key\": \"%s\", \"count\": %d,"
+                                + " \"totalMs\": %.3f, \"meanMs\": %.3f, \"p50Ms\": %.3f, \"p95Ms\": %.3f,"
+                                + " \"p99Ms\": %.3f, \"maxMs\": %.3f}",
+                        parts[0], jsonEscape(parts[1]), h.getCount(), h.getTotalMillis(), h.getMeanMillis(),
+                        h.getPercentileMillis(50), h.getPercentileMillis(95), h.getPercentileMillis(99),
+                        h.getMaxMillis()));
+                separator = ",";
+            }
+            json.write("\n  ]\n}\n");
+        }
+    }
+
+    /**
+     * Clears all histograms and counters.
+     */
+    public static void reset() {
+        histograms.clear();
+        counters.clear();
+    }
+
+    private static String csvEscape(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String jsonEscape(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
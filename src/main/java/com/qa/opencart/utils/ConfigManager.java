@@ -0,0 +1,229 @@
+package com.qa.opencart.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Immutable, thread-safe snapshot of the framework configuration, loaded once per JVM.<br/>
+ * Layers, lowest to highest priority:
+ * <ol>
+ *     <li>config.properties from the classpath (or the file given by -Dconfig.file)</li>
+ *     <li>environment variables: pool.size is overridden by POOL_SIZE, browserName by BROWSERNAME</li>
+ *     <li>system properties: -Dpool.size=4</li>
+ * </ol>
+ * An environment variable only overrides a key present in config.properties: a variable name
+ * cannot be turned back into a key (POOL_SIZE could be pool.size or pool_size), and the process
+ * environment holds many unrelated variables. A key missing from the file is set with a system property.<br/>
+ * Typed values are parsed on first access and memoized; a value which does not parse, e.g. a
+ * boolean other than true or false, fails with an IllegalArgumentException naming the key.
+ */
+public final class ConfigManager {
+    public static final String CONFIG_RESOURCE = "com/qa/opencart/resources/config/config.properties";
+
+    private static final Log log = Log.get(ConfigManager.class);
+    private static volatile ConfigManager instance;
+
+    private final Map<String, String> values;
+    private final Map<String, Object> parsed = new ConcurrentHashMap<>();
+    private final boolean defaultsOnly;
+
+    private ConfigManager(Map<String, String> values) {
+        this(values, false);
+    }
+
+    private ConfigManager(Map<String, String> values, boolean defaultsOnly) {
+        this.values = Collections.unmodifiableMap(values);
+        this.defaultsOnly = defaultsOnly;
+    }
+
+    /**
+     * Returns the JVM wide configuration, loading it on first use.
+     * @return
+     */
+    public static ConfigManager getInstance() {
+        ConfigManager config = instance;
+        if (config == null) {
+            synchronized (ConfigManager.class) {
+                config = instance;
+                if (config == null) {
+                    config = load();
+                    instance = config;
+                    // logged only now: the logger reads its levels from this configuration
+                    if (config.defaultsOnly) {
+                        log.warn("No {} on the classpath, using defaults", CONFIG_RESOURCE);
+                    }
+                }
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Wraps the given properties without any layering, e.g. for properties built by a test.
+     * @param prop
+     * @return
+     */
+    public static ConfigManager of(Properties prop) {
+        Map<String, String> values = new HashMap<String, String>();
+        for (String key : prop.stringPropertyNames()) {
+            values.put(key, prop.getProperty(key).trim());
+        }
+        return new ConfigManager(values);
+    }
+
+    private static ConfigManager load() {
+        Properties fileProps = new Properties();
+        boolean found;
+        String configFile = System.getProperty("config.file");
+        try (InputStream in = configFile != null
+                ? Files.newInputStream(Paths.get(configFile))
+                : ConfigManager.class.getClassLoader().getResourceAsStream(CONFIG_RESOURCE)) {
+            found = in != null;
+            if (found) {
+                fileProps.load(in);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read the configuration", e);
+        }
+
+        Map<String, String> values = new HashMap<String, String>();
+        for (String key : fileProps.stringPropertyNames()) {
+            values.put(key, fileProps.getProperty(key).trim());
+            String env = System.getenv(toEnvName(key));
+            if (env != null) {
+                values.put(key, env.trim());
+            }
+        }
+        Properties system = System.getProperties();
+        for (String key : system.stringPropertyNames()) {
+            values.put(key, system.getProperty(key).trim());
+        }
+        return new ConfigManager(values, !found);
+    }
+
+    private static String toEnvName(String key) {
+        return key.replace('.', '_').replace('-', '_').toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the value, or null when the key is missing.
+     * @param key
+     * @return
+     */
+    public String getString(String key) {
+        return values.get(key);
+    }
+
+    /**
+     * Returns the value, or the default when the key is missing or blank.
+     * @param key
+     * @param defaultValue
+     * @return
+     */
+    public String getString(String key, String defaultValue) {
+        String value = values.get(key);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    public int getInt(String key, int defaultValue) {
+        return getParsed(key, "int", Integer::valueOf, defaultValue);
+    }
+
+    public long getLong(String key, long defaultValue) {
+        return getParsed(key, "long", Long::valueOf, defaultValue);
+    }
+
+    /**
+     * Returns true or false, ignoring case. Any other value, e.g. a typo like "ture", is rejected.
+     * @param key
+     * @param defaultValue
+     * @return
+     * @throws IllegalArgumentException when the value is neither true nor false
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+        return getParsed(key, "boolean", ConfigManager::parseBoolean, defaultValue);
+    }
+
+    /**
+     * Returns a duration such as 250ms, 10s, 5m, 1h or PT10S. A plain number means seconds.
+     * @param key
+     * @param defaultValue
+     * @return
+     */
+    public Duration getDuration(String key, Duration defaultValue) {
+        return getParsed(key, "duration", ConfigManager::parseDuration, defaultValue);
+    }
+
+    /**
+     * Returns true when the key has a non-blank value.
+     * @param key
+     * @return
+     */
+    public boolean has(String key) {
+        String value = values.get(key);
+        return value != null && !value.isEmpty();
+    }
+
+    /**
+     * Returns a mutable copy of all values, for code that still expects Properties.
+     * @return
+     */
+    public Properties toProperties() {
+        Properties prop = new Properties();
+        prop.putAll(values);
+        return prop;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getParsed(String key, String type, Function<String, T> parser, T defaultValue) {
+        String value = values.get(key);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return (T) parsed.computeIfAbsent(type + ':' + key, k -> parser.apply(value));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Config value of " + key + " is not a valid " + type + ": " + value, e);
+        }
+    }
+
+    private static Boolean parseBoolean(String value) {
+        if ("true".equalsIgnoreCase(value)) {
+            return Boolean.TRUE;
+        }
+        if ("false".equalsIgnoreCase(value)) {
+            return Boolean.FALSE;
+        }
+        throw new IllegalArgumentException("expected true or false");
+    }
+
+    static Duration parseDuration(String value) {
+        String v = value.trim().toLowerCase(Locale.ROOT);
+        if (v.startsWith("pt")) {
+            return Duration.parse(v.toUpperCase(Locale.ROOT));
+        }
+        if (v.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2).trim()));
+        }
+        if (v.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(v.substring(0, v.length() - 1).trim()));
+        }
+        if (v.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(v.substring(0, v.length() - 1).trim()));
+        }
+        if (v.endsWith("h")) {
+            return Duration.ofHours(Long.parseLong(v.substring(0, v.length() - 1).trim()));
+        }
+        return Duration.ofSeconds(Long.parseLong(v));
+    }
+}
@@ -4,5 +4,7 @@ public class Constants {
 
     public static final String LOGIN_PAGE_TITLE = "Account Login";
     public static final String LOGIN_PAGE_URL_FRACTION = "route=account/login";
+    public static final String ACCOUNTS_PAGE_URL_FRACTION = "route=account/account";
+    public static final int DEFAULT_TIME_OUT = 10;
 
 }
@@ -0,0 +1,179 @@
+package com.qa.opencart.utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Select elements handled with one script per call instead of one round trip per option.<br/>
+ * select() picks an option of a visible single select by text, value or index and fires input
+ * and change events like a user selection. Multi-selects, hidden selects and disabled options
+ * are left to the Select class, which selects every match, refuses elements a user cannot reach
+ * and decides how a disabled option is handled. getOptionTexts() caches the option texts per driver and locator; a
+ * MutationObserver on the select element bumps a version in the page whenever its options
+ * change (e.g. the zone list after choosing a country), so a cached list is confirmed with a
+ * tiny response and only re-read when the DOM really changed.<br/>
+ * Methods return null when the script cannot run, so callers fall back to the Select class.
+ */
+public class DropDownEngine {
+
+    public enum SelectBy {
+        TEXT, VALUE, INDEX
+    }
+
+    private static final Map<WebDriver, DropDownEngine> ENGINES =
+            Collections.synchronizedMap(new WeakHashMap<WebDriver, DropDownEngine>());
+
+    private static final String OPTIONS_SCRIPT = JavaScriptUtil.RESOLVE_FUNCTION
+            + "var select = resolve(arguments[0], arguments[1])[0], known = arguments[2];"
+            + "if (!select || !select.options) { return null; }"
+            + "var state = select.__opencartOptions;"
+            + "if (!state) {"
+            + "  state = select.__opencartOptions = {id: Math.random().toString(36).slice(2), version: 0};"
+            + "  new MutationObserver(function () { state.version++; }).observe(select,"
+            + "      {childList: true, subtree: true, characterData: true, attributes: true,"
+            + "       attributeFilter: ['value', 'label']});"
+            + "}"
+            + "var token = state.id + ':' + state.version;"
+            + "if (token === known) { return [token]; }"
+            + "return [token].concat(Array.prototype.map.call(select.options, function (o) { return o.text.trim(); }));";
+
+    private static final String SELECT_SCRIPT = JavaScriptUtil.RESOLVE_FUNCTION
+            + "var select = resolve(arguments[0], arguments[1])[0], by = arguments[2], key = arguments[3];"
+            + "if (!select || !select.options || select.disabled || select.multiple) { return null; }"
+            + "if (!(select.offsetWidth || select.offsetHeight || select.getClientRects().length)"
+            + "    || window.getComputedStyle(select).visibility === 'hidden') { return null; }"
+            + "function norm(s) { return String(s).replace(/\\s+/g, ' ').trim(); }"
+            + "var options = select.options, index = -1, i;"
+            + "if (by === 'INDEX') {"
+            + "  index = Number(key) < options.length ? Number(key) : -1;"
+            + "} else {"
+            + "  for (i = 0; i < options.length; i++) {"
+            + "    if (by === 'VALUE' ? options[i].value === key : norm(options[i].text) === norm(key)) { index = i; break; }"
+            + "  }"
+            + "}"
+            + "if (index < 0) { return -1; }"
+            + "if (options[index].disabled) { return null; }"
+            + "if (!options[index].selected) {"
+            + "  select.focus();"
+            + "  options[index].selected = true;"
+            + "  select.dispatchEvent(new Event('input', {bubbles: true}));"
+            + "  select.dispatchEvent(new Event('change', {bubbles: true}));"
+            + "}"
+            + "return index;";
+
+    private final WeakReference<WebDriver> driverRef;
+    private final Map<By, CachedOptions> options = new ConcurrentHashMap<>();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    private DropDownEngine(WebDriver driver) {
+        this.driverRef = new WeakReference<>(driver);
+    }
+
+    /**
+     * Returns the engine of the given driver, creating it on first use.
+     * @param driver
+     * @return
+     */
+    public static DropDownEngine forDriver(WebDriver driver) {
+        synchronized (ENGINES) {
+            DropDownEngine engine = ENGINES.get(driver);
+            if (engine == null) {
+                engine = new DropDownEngine(driver);
+                ENGINES.put(driver, engine);
+            }
+            return engine;
+        }
+    }
+
+    /**
+     * Selects the option in one call, firing input and change events when the selection changes.
+     * @param locator
+     * @param by
+     * @param key text, value or index of the option
+     * @return the index of the selected option, -1 when there is no such option, or null when the
+     * script cannot run or the Select class has to handle the element (no visible single select
+     * or a disabled option)
+     */
+    public Integer select(By locator, SelectBy by, String key) {
+        Object result = execute(SELECT_SCRIPT, locator, by.name(), key);
+        return result instanceof Number ? ((Number) result).intValue() : null;
+    }
+
+    /**
+     * Returns the option texts of the select element, read again only when its options changed.
+     * @param locator
+     * @return
+     */
+    public List<String> getOptionTexts(By locator) {
+        CachedOptions cached = options.get(locator);
+        Object result = execute(OPTIONS_SCRIPT, locator, cached == null ? null : cached.token);
+        if (!(result instanceof List) || ((List<?>) result).isEmpty()) {
+            options.remove(locator);
+            return null;
+        }
+        List<?> values = (List<?>) result;
+        String token = String.valueOf(values.get(0));
+        if (cached != null && cached.token.equals(token) && values.size() == 1) {
+            cacheHits.incrementAndGet();
+            return cached.texts;
+        }
+        cacheMisses.incrementAndGet();
+        List<String> texts = new ArrayList<String>(values.size() - 1);
+        for (Object text : values.subList(1, values.size())) {
+            texts.add(String.valueOf(text));
+        }
+        CachedOptions fresh = new CachedOptions(token, Collections.unmodifiableList(texts));
+        options.put(locator, fresh);
+        return fresh.texts;
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    private Object execute(String script, By locator, Object... extraArgs) {
+        WebDriver driver = driverRef.get();
+        String[] query = JavaScriptUtil.toQuery(locator);
+        if (query == null || !(driver instanceof JavascriptExecutor)) {
+            return null;
+        }
+        Object[] args = new Object[2 + extraArgs.length];
+        args[0] = query[0];
+        args[1] = query[1];
+        System.arraycopy(extraArgs, 0, args, 2, extraArgs.length);
+        try {
+            return ((JavascriptExecutor) driver).executeScript(script, args);
+        } catch (WebDriverException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Option texts with the page side version they were read at.
+     */
+    private static class CachedOptions {
+        private final String token;
+        private final List<String> texts;
+
+        CachedOptions(String token, List<String> texts) {
+            this.token = token;
+            this.texts = texts;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.qa.opencart.utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsDriver;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Per-driver cache of resolved WebElement handles keyed by locator.<br/>
+ * Handles stay valid while the page they were found on is loaded. The cache is
+ * cleared when the driver navigates, switches frame or window or clicks (ElementCacheListener,
+ * installed by DriverFactory) and when ElementUtils sees the url change; a stale handle
+ * is dropped and re-resolved by the caller.<br/>
+ * A decorated driver shares the cache of the driver it wraps, but elements are always found
+ * through the driver the caller passes in, so decorators see the lookups and the actions.<br/>
+ * A cached handle references its driver, so the cache of a driver is removed when the driver
+ * is quit (remove()); invalidate() also lets an unused driver be collected.<br/>
+ * Also holds the bounded, shared cache of By objects built by ElementUtils.getBy().
+ */
+public class ElementCache {
+
+    private static final int MAX_LOCATORS = 512;
+
+    private static final Map<WebDriver, ElementCache> CACHES =
+            Collections.synchronizedMap(new WeakHashMap<WebDriver, ElementCache>());
+
+    private static final Map<String, By> BY_CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<String, By>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, By> eldest) {
+                    return size() > MAX_LOCATORS;
+                }
+            });
+
+    private static final AtomicLong byHits = new AtomicLong();
+    private static final AtomicLong byMisses = new AtomicLong();
+
+    private final Map<By, WebElement> elements = new ConcurrentHashMap<>();
+    private final Set<List<By>> preloaded = Collections.newSetFromMap(new ConcurrentHashMap<List<By>, Boolean>());
+    private volatile String currentUrl;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong staleRetries = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private ElementCache() {
+    }
+
+    /**
+     * Returns the cache of the given driver, creating it on first use.
+     * @param driver
+     * @return
+     */
+    public static ElementCache forDriver(WebDriver driver) {
+        WebDriver key = unwrap(driver);
+        synchronized (CACHES) {
+            ElementCache cache = CACHES.get(key);
+            if (cache == null) {
+                cache = new ElementCache();
+                CACHES.put(key, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Drops the cache of a driver which is being quit.
+     * @param driver
+     */
+    public static void remove(WebDriver driver) {
+        CACHES.remove(unwrap(driver));
+    }
+
+    private static WebDriver unwrap(WebDriver driver) {
+        while (driver instanceof WrapsDriver) {
+            driver = ((WrapsDriver) driver).getWrappedDriver();
+        }
+        return driver;
+    }
+
+    /**
+     * Returns the cached handle for the locator, or finds and caches it.
+     * @param driver the driver of this cache, as decorated by the caller
+     * @param locator
+     * @return
+     */
+    public WebElement get(WebDriver driver, By locator) {
+        WebElement element = elements.get(locator);
+        if (element != null) {
+            hits.incrementAndGet();
+            return element;
+        }
+        misses.incrementAndGet();
+        element = driver.findElement(locator);
+        elements.put(locator, element);
+        return element;
+    }
+
+    /**
+     * Returns true when a handle for the locator is cached.
+     * @param locator
+     * @return
+     */
+    public boolean contains(By locator) {
+        return elements.containsKey(locator);
+    }
+
+    /**
+     * Caches a handle resolved elsewhere, e.g. by a batch lookup.
+     * @param locator
+     * @param element
+     */
+    void put(By locator, WebElement element) {
+        elements.put(locator, element);
+    }
+
+    /**
+     * Claims the batch lookup of a page's locators for the page currently loaded.
+     * @param locators
+     * @return true once per locator list until the cache is invalidated
+     */
+    boolean markPreloaded(List<By> locators) {
+        return preloaded.add(locators);
+    }
+
+    /**
+     * Called when the handle for the locator turned out to be stale.<br/>
+     * A stale handle means the page changed, so every cached handle is dropped.
+     * @param locator
+     */
+    public void onStale(By locator) {
+        staleRetries.incrementAndGet();
+        CommandMetrics.increment(CommandMetrics.STALE_RETRIES);
+        invalidate();
+    }
+
+    /**
+     * Records the url the driver is on and clears the cache when it differs
+     * from the last known one.
+     * @param url
+     */
+    public void onUrl(String url) {
+        if (url != null && !url.equals(currentUrl)) {
+            if (currentUrl != null) {
+                invalidate();
+            }
+            currentUrl = url;
+        }
+    }
+
+    /**
+     * Drops every cached handle, e.g. after navigation or switching frames.
+     */
+    public void invalidate() {
+        preloaded.clear();
+        if (!elements.isEmpty()) {
+            invalidations.incrementAndGet();
+            elements.clear();
+        }
+    }
+
+    /**
+     * Returns the interned By for the locator type and value, building it on first use.
+     * @param locatorType
+     * @param locatorValue
+     * @param builder builds the By on a miss
+     * @return
+     */
+    static By internBy(String locatorType, String locatorValue, Supplier<By> builder) {
+        String key = locatorType.toLowerCase() + ':' + locatorValue;
+        By locator = BY_CACHE.get(key);
+        if (locator != null) {
+            byHits.incrementAndGet();
+            return locator;
+        }
+        byMisses.incrementAndGet();
+        locator = builder.get();
+        if (locator != null) {
+            BY_CACHE.put(key, locator);
+        }
+        return locator;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getStaleRetries() {
+        return staleRetries.get();
+    }
+
+    /**
+     * Share of lookups answered from the cache, between 0 and 1.
+     * @return
+     */
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    /**
+     * Number of findElement calls the cache saved: every hit is one call,
+     * minus the extra lookups made to recover from stale handles.
+     * @return
+     */
+    public long getSavedRoundTrips() {
+        return Math.max(0, hits.get() - staleRetries.get());
+    }
+
+    /**
+     * Cache counters in one line.
+     * @return
+     */
+    public String report() {
+        return String.format("ElementCache[hits=%d, misses=%d, hitRate=%.1f%%, staleRetries=%d, invalidations=%d,"
+                        + " savedRoundTrips=%d, byHits=%d, byMisses=%d]",
+                hits.get(), misses.get(), getHitRate() * 100, staleRetries.get(), invalidations.get(),
+                getSavedRoundTrips(), byHits.get(), byMisses.get());
+    }
+}
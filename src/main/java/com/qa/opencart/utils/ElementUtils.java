@@ -1,7 +1,12 @@
 package com.qa.opencart.utils;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 import org.openqa.selenium.Alert;
 import org.openqa.selenium.By;
@@ -12,26 +17,63 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.interactions.Actions;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.FluentWait;
 import org.openqa.selenium.support.ui.Select;
 import org.openqa.selenium.support.ui.Wait;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
 public class ElementUtils {
+    private static final Log log = Log.get(ElementUtils.class);
     private WebDriver driver;
+    private JavaScriptUtil jsUtil;
+    private ElementCache elementCache;
+    private WaitEngine waitEngine;
+    private DropDownEngine dropDowns;
+    private boolean inBrowserWaits;
+    private boolean nativeFormFill;
 
     public ElementUtils(WebDriver driver) {
         this.driver = driver;
+        this.jsUtil = new JavaScriptUtil(driver);
+        this.elementCache = ElementCache.forDriver(driver);
+        this.waitEngine = new WaitEngine(driver);
+        this.dropDowns = DropDownEngine.forDriver(driver);
+        this.inBrowserWaits = ConfigManager.getInstance().getBoolean("wait.inbrowser", false);
+        this.nativeFormFill = ConfigManager.getInstance().getBoolean("form.fill.native", false);
+    }
+
+    /**
+     * When enabled, waitForElementPresence and waitForElementVisible wait inside the browser
+     * (MutationObserver) instead of polling over the wire.<br/>
+     * Defaults to wait.inbrowser from the configuration.
+     * @param inBrowserWaits
+     */
+    public void setInBrowserWaits(boolean inBrowserWaits) {
+        this.inBrowserWaits = inBrowserWaits;
+    }
+
+    /**
+     * When enabled, doFillForm types every field with real key events instead of setting
+     * the values with one script.<br/>
+     * Defaults to form.fill.native from the configuration.
+     * @param nativeFormFill
+     */
+    public void setNativeFormFill(boolean nativeFormFill) {
+        this.nativeFormFill = nativeFormFill;
     }
 
     /**
      * This method will return the locator and uses By locator internally.<br/>
-     * Parameters are both of type String.
+     * Parameters are both of type String.<br/>
+     * Built locators are interned, so repeated calls return the same By object.
      * @param locatorType
      * @param locatorValue
      * @return
      */
     public By getBy(String locatorType, String locatorValue) {
+        return ElementCache.internBy(locatorType, locatorValue, () -> buildBy(locatorType, locatorValue));
+    }
+
+    private By buildBy(String locatorType, String locatorValue) {
         By locator = null;
         switch (locatorType.toLowerCase()) {
             case "id":
@@ -67,12 +109,37 @@ public class ElementUtils {
     }
 
     /**
-     * This method will return the element and uses By locator as parameter.
+     * This method will return the element and uses By locator as parameter.<br/>
+     * The handle is cached per driver until the page changes.
      * @param locator
      * @return
      */
     public WebElement getElement(By locator) {
-        return driver.findElement(locator);
+        return elementCache.get(driver, locator);
+    }
+
+    /**
+     * Runs the action on the cached element.<br/>
+     * If the handle has gone stale it is resolved again and the action is retried once.
+     * @param locator
+     * @param action
+     * @return
+     */
+    private <T> T withElement(By locator, Function<WebElement, T> action) {
+        try {
+            return action.apply(getElement(locator));
+        } catch (StaleElementReferenceException e) {
+            elementCache.onStale(locator);
+            return action.apply(getElement(locator));
+        }
+    }
+
+    /**
+     * Returns the element cache of this driver, e.g. to report its hit rate.
+     * @return
+     */
+    public ElementCache getElementCache() {
+        return elementCache;
     }
 
     /**
@@ -81,7 +148,10 @@ public class ElementUtils {
      * @param locator
      */
     public void doClick(By locator) {
-        getElement(locator).click();
+        withElement(locator, e -> {
+            e.click();
+            return null;
+        });
     }
 
 
@@ -94,7 +164,7 @@ public class ElementUtils {
      * @param locatorValue
      */
     public void doClick(String locatorType, String locatorValue) {
-        getElement(getBy(locatorType, locatorValue)).click();
+        doClick(getBy(locatorType, locatorValue));
     }
 
     /**
@@ -103,7 +173,10 @@ public class ElementUtils {
      * @param value
      */
     public void doSendKeys(By locator, String value) {
-        getElement(locator).sendKeys(value);
+        withElement(locator, e -> {
+            e.sendKeys(value);
+            return null;
+        });
     }
 
     /**
@@ -115,7 +188,45 @@ public class ElementUtils {
      * @param value
      */
     public void doSendKeys(String locatorType, String locatorValue, String value) {
-        getElement(getBy(locatorType, locatorValue)).sendKeys(value);
+        doSendKeys(getBy(locatorType, locatorValue), value);
+    }
+
+    /**
+     * Fills a whole form in one JavaScript call, firing input and change events on every field.<br/>
+     * Fields the script cannot fill (e.g. not present yet) and every field in native typing mode
+     * are cleared and typed with doSendKeys instead.
+     * @param fieldValues locator to value, filled in iteration order
+     */
+    public void doFillForm(Map<By, String> fieldValues) {
+        doFillForm(fieldValues, Collections.<By>emptySet());
+    }
+
+    /**
+     * Fills a whole form in one JavaScript call, except the given fields which need
+     * real key events (autocomplete, key listeners) and are typed natively.
+     * @param fieldValues locator to value, filled in iteration order
+     * @param nativeFields
+     */
+    public void doFillForm(Map<By, String> fieldValues, Set<By> nativeFields) {
+        Map<By, String> scripted = new LinkedHashMap<By, String>();
+        if (!nativeFormFill) {
+            for (Map.Entry<By, String> field : fieldValues.entrySet()) {
+                if (!nativeFields.contains(field.getKey())) {
+                    scripted.put(field.getKey(), field.getValue());
+                }
+            }
+        }
+        List<By> skipped = scripted.isEmpty() ? null : jsUtil.fillFields(scripted);
+        for (Map.Entry<By, String> field : fieldValues.entrySet()) {
+            By locator = field.getKey();
+            if (!scripted.containsKey(locator) || skipped == null || skipped.contains(locator)) {
+                withElement(locator, e -> {
+                    e.clear();
+                    e.sendKeys(field.getValue());
+                    return null;
+                });
+            }
+        }
     }
 
     /**
@@ -124,7 +235,7 @@ public class ElementUtils {
      * @return
      */
     public String doGetText(By locator) {
-        return getElement(locator).getText();
+        return withElement(locator, WebElement::getText);
     }
 
     /**
@@ -134,7 +245,7 @@ public class ElementUtils {
      * @return
      */
     public String doGetAttribute(By locator, String attrName) {
-        return getElement(locator).getAttribute(attrName);
+        return withElement(locator, e -> e.getAttribute(attrName));
     }
 
     /**
@@ -143,7 +254,7 @@ public class ElementUtils {
      * @return
      */
     public boolean doIsDisplayed(By locator) {
-        return getElement(locator).isDisplayed();
+        return withElement(locator, WebElement::isDisplayed);
     }
 
     /**
@@ -165,29 +276,24 @@ public class ElementUtils {
     }
 
     /**
-     * Method uses a forEach loop to iterate through the List of WebElements<br>
-     * And then prints the text of each element
+     * Method logs the text of each element, all in one line<br>
+     * All texts are read with a single JavaScript call when possible
      * @param locator
      */
     public void printElementsText(By locator) {
-        List<WebElement> eleList = getElements(locator);
-        for (WebElement e : eleList) {
-            String text = e.getText();
-            System.out.println(text);
-        }
+        log.info("Texts of {}: {}", locator, getAllElementsText(locator));
     }
 
     /**
-     * This method will return the list of element's text
+     * This method will return the list of element's text<br>
+     * Empty texts are skipped
      *
      * @param locator
      * @return
      */
     public List<String> getElementsTextList(By locator) {
-        List<WebElement> eleList = getElements(locator);
         List<String> eleTextList = new ArrayList<String>();
-        for (WebElement e : eleList) {
-            String text = e.getText();
+        for (String text : getAllElementsText(locator)) {
             if (!text.isEmpty()) {
                 eleTextList.add(text);
             }
@@ -196,22 +302,63 @@ public class ElementUtils {
     }
 
     /**
-     * This method will return the list of element's attribute value
+     * Returns the text of every matching element, including empty ones.<br>
+     * Uses one bulk JavaScript query and falls back to one getText() call per element
+     * @param locator
+     * @return
+     */
+    private List<String> getAllElementsText(By locator) {
+        List<String> texts = jsUtil.getTexts(locator);
+        if (texts != null) {
+            return texts;
+        }
+        texts = new ArrayList<String>();
+        for (WebElement e : getElements(locator)) {
+            texts.add(e.getText());
+        }
+        return texts;
+    }
+
+    /**
+     * This method will return the list of element's attribute value<br>
+     * All values are read with a single JavaScript call when possible
      *
      * @param locator
      * @param attrName
      * @return
      */
     public List<String> getElementsAttributeList(By locator, String attrName) {
-        List<WebElement> eleList = getElements(locator);
-        List<String> eleAttrList = new ArrayList<String>();
-        for (WebElement e : eleList) {
+        List<String> eleAttrList = jsUtil.getAttributes(locator, attrName);
+        if (eleAttrList != null) {
+            return eleAttrList;
+        }
+        eleAttrList = new ArrayList<String>();
+        for (WebElement e : getElements(locator)) {
             String attrVal = e.getAttribute(attrName);
             eleAttrList.add(attrVal);
         }
         return eleAttrList;
     }
 
+    /**
+     * This method will return the displayed state of every matching element<br>
+     * All states are read with a single JavaScript call when possible
+     *
+     * @param locator
+     * @return
+     */
+    public List<Boolean> getElementsVisibilityList(By locator) {
+        List<Boolean> visibilityList = jsUtil.getVisibility(locator);
+        if (visibilityList != null) {
+            return visibilityList;
+        }
+        visibilityList = new ArrayList<Boolean>();
+        for (WebElement e : getElements(locator)) {
+            visibilityList.add(e.isDisplayed());
+        }
+        return visibilityList;
+    }
+
     /**
      * Method to click on a specific link from the list of elements
      * @param locator
@@ -219,11 +366,10 @@ public class ElementUtils {
      */
     public void clickOnLink(By locator, String linkText) {
         List<WebElement> langList = getElements(locator);
-        System.out.println(langList.size());
         for (WebElement e : langList) {
             String text = e.getText();
-            System.out.println(text);
             if (text.contains(linkText)) {
+                log.debug("Clicking link {} of {}", text, locator);
                 e.click();
                 break;
             }
@@ -231,6 +377,18 @@ public class ElementUtils {
     }
 
     /******************************* Drop Down Utils ***************************/
+    // Every method tries one DropDownEngine script first and falls back to the Select class
+
+    private boolean selectWithScript(By locator, DropDownEngine.SelectBy by, String key) {
+        Integer index = dropDowns.select(locator, by, key);
+        if (index == null) {
+            return false;
+        }
+        if (index < 0) {
+            throw new NoSuchElementException("Cannot locate option with " + by.name().toLowerCase() + ": " + key);
+        }
+        return true;
+    }
 
     /**
      * Method to select an option from a drop down using index
@@ -238,8 +396,13 @@ public class ElementUtils {
      * @param index
      */
     public void doSelectDropDownByIndex(By locator, int index) {
-        Select select = new Select(getElement(locator));
-        select.selectByIndex(index);
+        if (selectWithScript(locator, DropDownEngine.SelectBy.INDEX, String.valueOf(index))) {
+            return;
+        }
+        withElement(locator, e -> {
+            new Select(e).selectByIndex(index);
+            return null;
+        });
     }
 
     /**
@@ -248,9 +411,13 @@ public class ElementUtils {
      * @param visibleText
      */
     public void doSelectDropDownByVisibleText(By locator, String visibleText) {
-        Select select = new Select(getElement(locator));
-        select.selectByVisibleText(visibleText);
-        ;
+        if (selectWithScript(locator, DropDownEngine.SelectBy.TEXT, visibleText)) {
+            return;
+        }
+        withElement(locator, e -> {
+            new Select(e).selectByVisibleText(visibleText);
+            return null;
+        });
     }
 
     /**
@@ -259,8 +426,13 @@ public class ElementUtils {
      * @param value
      */
     public void doSelectDropDownByValue(By locator, String value) {
-        Select select = new Select(getElement(locator));
-        select.selectByValue(value);
+        if (selectWithScript(locator, DropDownEngine.SelectBy.VALUE, value)) {
+            return;
+        }
+        withElement(locator, e -> {
+            new Select(e).selectByValue(value);
+            return null;
+        });
     }
 
     /**
@@ -269,17 +441,24 @@ public class ElementUtils {
      * @return
      */
     public int getDropDownOptionsCount(By locator) {
-        Select select = new Select(getElement(locator));
-        return select.getOptions().size();
+        List<String> options = dropDowns.getOptionTexts(locator);
+        if (options != null) {
+            return options.size();
+        }
+        return withElement(locator, e -> new Select(e).getOptions().size());
     }
 
     /**
-     * Method to get the list of options from the drop down and select option using text
+     * Method to get the list of options from the drop down and select option using text<br/>
+     * Does nothing when no option has the text
      * @param locator
      * @param value
      * @return
      */
     public void selectValueFromDropDown(By locator, String value) {
+        if (dropDowns.select(locator, DropDownEngine.SelectBy.TEXT, value) != null) {
+            return;
+        }
         Select select = new Select(getElement(locator));
         List<WebElement> optionsList = select.getOptions();
         for (WebElement e : optionsList) {
@@ -292,16 +471,25 @@ public class ElementUtils {
     }
 
     /**
-     * Method iterates through a List of WebElements and stores corresponding text in a List
-     * and returns this textList
+     * Method returns the text of every option of the drop down<br>
+     * Uses one cached JavaScript query and falls back to iterating through the options
      * @param locator
      * @return
      */
     public List<String> getDropDownOptionsList(By locator) {
+        List<String> optionsTextList = dropDowns.getOptionTexts(locator);
+        if (optionsTextList != null) {
+            if (log.isDebugEnabled()) {
+                log.debug("{} options in {}", optionsTextList.size(), locator);
+            }
+            return optionsTextList;
+        }
         Select select = new Select(getElement(locator));
         List<WebElement> optionsList = select.getOptions();
-        List<String> optionsTextList = new ArrayList<String>();
-        System.out.println(optionsList.size());
+        optionsTextList = new ArrayList<String>();
+        if (log.isDebugEnabled()) {
+            log.debug("{} options in {}", optionsList.size(), locator);
+        }
 
         for (WebElement e : optionsList) {
             String text = e.getText();
@@ -318,8 +506,10 @@ public class ElementUtils {
      * @param value
      */
     public void doActionsSendKeys(By locator, String value) {
-        Actions act = new Actions(driver);
-        act.sendKeys(getElement(locator), value).perform();
+        withElement(locator, e -> {
+            new Actions(driver).sendKeys(e, value).perform();
+            return null;
+        });
     }
 
     /**
@@ -329,8 +519,10 @@ public class ElementUtils {
      * @param locator
      */
     public void doActionsClick(By locator) {
-        Actions act = new Actions(driver);
-        act.click(getElement(locator)).perform();
+        withElement(locator, e -> {
+            new Actions(driver).click(e).perform();
+            return null;
+        });
     }
 
     /************************* Wait Utils **************************/
@@ -341,10 +533,53 @@ public class ElementUtils {
      * @param timeOut
      */
     public void clickWhenReady(By locator, int timeOut) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
+        WebDriverWait wait = waitEngine.newWait(Duration.ofSeconds(timeOut));
         wait.until(ExpectedConditions.elementToBeClickable(locator));
     }
 
+    /**
+     * Starts a wait for several conditions at once which returns as soon as any of them holds,
+     * e.g. the success alert or the error banner, and tells which one did.<br/>
+     * All element conditions are checked with one script call per poll.
+     * @return
+     */
+    public MultiConditionWait waitForAnyOf() {
+        return waitEngine.anyOf();
+    }
+
+    /**
+     * Starts a wait for several conditions which returns once all of them hold at the same time.
+     * @return
+     */
+    public MultiConditionWait waitForAllOf() {
+        return waitEngine.allOf();
+    }
+
+    /**
+     * Starts a wait for several conditions which returns once none of them holds,
+     * e.g. until both the spinner and the overlay are gone.
+     * @return
+     */
+    public MultiConditionWait waitForNoneOf() {
+        return waitEngine.noneOf();
+    }
+
+    /**
+     * Waits until an element of any of the locators is visible, in one polling loop.
+     * @param timeOut
+     * @param locators
+     * @return the locator whose element became visible
+     */
+    public By waitForAnyVisible(int timeOut, By... locators) {
+        MultiConditionWait wait = waitEngine.anyOf();
+        Map<String, By> byName = new LinkedHashMap<String, By>();
+        for (By locator : locators) {
+            byName.put(locator.toString(), locator);
+            wait.whenVisible(locator.toString(), locator);
+        }
+        return byName.get(wait.until(Duration.ofSeconds(timeOut)).getWinner());
+    }
+
     /**
      * An expectation for checking that an element is present on the DOM of a page.
      * This does not necessarily mean that the element is visible.
@@ -354,7 +589,10 @@ public class ElementUtils {
      * @return
      */
     public WebElement waitForElementPresence(By locator, int timeOut) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
+        if (inBrowserWaits) {
+            return waitEngine.waitInBrowser(locator, false, Duration.ofSeconds(timeOut));
+        }
+        WebDriverWait wait = waitEngine.newWait(Duration.ofSeconds(timeOut));
         return wait.until(ExpectedConditions.presenceOfElementLocated(locator));
     }
 
@@ -367,7 +605,7 @@ public class ElementUtils {
      * @return
      */
     public List<WebElement> waitForElementsPresence(By locator, int timeOut) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
+        WebDriverWait wait = waitEngine.newWait(Duration.ofSeconds(timeOut));
         return wait.until(ExpectedConditions.presenceOfAllElementsLocatedBy(locator));
     }
 
@@ -375,13 +613,16 @@ public class ElementUtils {
      * An expectation for checking that an element is present on the DOM of a page
      * and visible. Visibility means that the element is not only displayed but also
      * has a height and width that is greater than 0.
-     * default polling time = 500 ms
+     * default polling time = adaptive, from 25 ms up to 500 ms
      * @param locator
      * @param timeOut
      * @return
      */
     public WebElement waitForElementVisible(By locator, int timeOut) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
+        if (inBrowserWaits) {
+            return waitEngine.waitInBrowser(locator, true, Duration.ofSeconds(timeOut));
+        }
+        WebDriverWait wait = waitEngine.newWait(Duration.ofSeconds(timeOut));
         return wait.until(ExpectedConditions.visibilityOfElementLocated(locator));
     }
 
@@ -389,14 +630,24 @@ public class ElementUtils {
      * An expectation for checking that an element is present on the DOM of a page
      * and visible. Visibility means that the element is not only displayed but also
      * has a height and width that is greater than 0.
-     * default polling time = customized time
+     * polling time = adaptive, from 25 ms up to the customized time
      * @param locator
      * @param timeOut
      * @return
      */
     public WebElement waitForElementVisible(By locator, int timeOut, int pollingTime) {
-        WebDriverWait wait = new WebDriverWait(driver,
-                Duration.ofSeconds(timeOut), Duration.ofSeconds(pollingTime));
+        return waitForElementVisible(locator, Duration.ofSeconds(timeOut), Duration.ofSeconds(pollingTime));
+    }
+
+    /**
+     * Same as waitForElementVisible(By, int, int) with millisecond precision.
+     * @param locator
+     * @param timeOut
+     * @param maxPollingTime
+     * @return
+     */
+    public WebElement waitForElementVisible(By locator, Duration timeOut, Duration maxPollingTime) {
+        WebDriverWait wait = waitEngine.newWait(timeOut, maxPollingTime);
         return wait.until(ExpectedConditions.visibilityOfElementLocated(locator));
     }
 
@@ -410,7 +661,7 @@ public class ElementUtils {
      * @return
      */
     public List<WebElement> waitForElementsVisible(By locator, int timeOut) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
+        WebDriverWait wait = waitEngine.newWait(Duration.ofSeconds(timeOut));
         return wait.until(ExpectedConditions.visibilityOfAllElementsLocatedBy(locator));
 
     }
@@ -418,7 +669,7 @@ public class ElementUtils {
     // non web elements: title, url, alert
 
     public boolean waitForPageTitle(String titleVal, int timeOut) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
+        WebDriverWait wait = waitEngine.newWait(Duration.ofSeconds(timeOut));
         return wait.until(ExpectedConditions.titleContains(titleVal));
     }
 
@@ -429,7 +680,7 @@ public class ElementUtils {
      * @return
      */
     public boolean waitForPageActTitle(String actTitle, int timeOut) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
+        WebDriverWait wait = waitEngine.newWait(Duration.ofSeconds(timeOut));
         return wait.until(ExpectedConditions.titleIs(actTitle));
     }
 
@@ -471,11 +722,13 @@ public class ElementUtils {
      * @return
      */
     public String waitForUrlContains(String urlFraction, int timeOut) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
+        WebDriverWait wait = waitEngine.newWait(Duration.ofSeconds(timeOut));
 
         try {
             if (wait.until(ExpectedConditions.urlContains(urlFraction))) {
-                return driver.getCurrentUrl();
+                String currentUrl = driver.getCurrentUrl();
+                elementCache.onUrl(currentUrl);
+                return currentUrl;
             }
         } catch (TimeoutException e) {
             return null;
@@ -485,11 +738,13 @@ public class ElementUtils {
     }
 
     public String waitForUrlToBe(String url, int timeOut) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
+        WebDriverWait wait = waitEngine.newWait(Duration.ofSeconds(timeOut));
 
         try {
             if (wait.until(ExpectedConditions.urlToBe(url))) {
-                return driver.getCurrentUrl();
+                String currentUrl = driver.getCurrentUrl();
+                elementCache.onUrl(currentUrl);
+                return currentUrl;
             }
         } catch (TimeoutException e) {
             return null;
@@ -504,7 +759,7 @@ public class ElementUtils {
      * @return
      */
     public Alert waitForAlert(int timeOut) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
+        WebDriverWait wait = waitEngine.newWait(Duration.ofSeconds(timeOut));
         return wait.until(ExpectedConditions.alertIsPresent());
     }
 
@@ -545,8 +800,10 @@ public class ElementUtils {
      * @return
      */
     public WebDriver waitForFrameByIndex(int timeOut, int frameIndex) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
-        return wait.until(ExpectedConditions.frameToBeAvailableAndSwitchToIt(frameIndex));
+        WebDriverWait wait = waitEngine.newWait(Duration.ofSeconds(timeOut));
+        WebDriver frameDriver = wait.until(ExpectedConditions.frameToBeAvailableAndSwitchToIt(frameIndex));
+        elementCache.invalidate();
+        return frameDriver;
     }
 
     /**
@@ -558,8 +815,10 @@ public class ElementUtils {
      * @return
      */
     public WebDriver waitForFrameByLocator(int timeOut, By frameLocator) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
-        return wait.until(ExpectedConditions.frameToBeAvailableAndSwitchToIt(frameLocator));
+        WebDriverWait wait = waitEngine.newWait(Duration.ofSeconds(timeOut));
+        WebDriver frameDriver = wait.until(ExpectedConditions.frameToBeAvailableAndSwitchToIt(frameLocator));
+        elementCache.invalidate();
+        return frameDriver;
     }
 
     /**
@@ -571,22 +830,36 @@ public class ElementUtils {
      * @return
      */
     public WebDriver waitForFrameByElement(int timeOut, WebElement frameElement) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
-        return wait.until(ExpectedConditions.frameToBeAvailableAndSwitchToIt(frameElement));
+        WebDriverWait wait = waitEngine.newWait(Duration.ofSeconds(timeOut));
+        WebDriver frameDriver = wait.until(ExpectedConditions.frameToBeAvailableAndSwitchToIt(frameElement));
+        elementCache.invalidate();
+        return frameDriver;
     }
 
     /**
      * Method using FluentWait.
-     * Return WebElement.
+     * Return WebElement.<br/>
+     * Polling starts at 25 ms and backs off up to pollingTime seconds.
      * @param locator
      * @param timeOut
      * @param pollingTime
      * @return
      */
     public WebElement waitForElementPresenceWithFluentWait(By locator, int timeOut, int pollingTime) {
-        Wait<WebDriver> wait = new FluentWait<WebDriver>(driver)
-                .withTimeout(Duration.ofSeconds(timeOut))
-                .pollingEvery(Duration.ofSeconds(pollingTime))
+        return waitForElementPresenceWithFluentWait(locator, Duration.ofSeconds(timeOut), Duration.ofSeconds(pollingTime));
+    }
+
+    /**
+     * Method using FluentWait with millisecond precision.
+     * Return WebElement.<br/>
+     * Polling starts at 25 ms and backs off up to maxPollingTime.
+     * @param locator
+     * @param timeOut
+     * @param maxPollingTime
+     * @return
+     */
+    public WebElement waitForElementPresenceWithFluentWait(By locator, Duration timeOut, Duration maxPollingTime) {
+        Wait<WebDriver> wait = waitEngine.newWait(timeOut, maxPollingTime)
                 .ignoring(NoSuchElementException.class)
                 .ignoring(StaleElementReferenceException.class)
                 .withMessage(locator + " is not found within the given time......");
@@ -596,15 +869,15 @@ public class ElementUtils {
     /**
      * Method using WebDriverWait,waits until the element is present<br>
      * Return WebElement<br>
+     * Polling starts at 25 ms and backs off up to pollingTime seconds<br>
      * @param locator
      * @param timeOut
      * @param pollingTime
      * @return
      */
     public WebElement waitForElementPresenceWithWait(By locator, int timeOut, int pollingTime) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(timeOut));
-        wait.pollingEvery(Duration.ofSeconds(pollingTime))
-                .ignoring(NoSuchElementException.class)
+        WebDriverWait wait = waitEngine.newWait(Duration.ofSeconds(timeOut), Duration.ofSeconds(pollingTime));
+        wait.ignoring(NoSuchElementException.class)
                 .ignoring(StaleElementReferenceException.class)
                 .withMessage(locator + " is not found within the given time......");
 
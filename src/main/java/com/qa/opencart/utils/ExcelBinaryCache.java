@@ -0,0 +1,478 @@
+package com.qa.opencart.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Compiles xlsx sheets into columnar binary files in excel.cache.dir (default target/excel-cache)
+ * and reads them back memory mapped, so a sheet is parsed by POI once per workbook version
+ * instead of once per run and surefire fork.<br/>
+ * The file name carries the SHA-256 of the workbook: an edited workbook gets a new file and the
+ * files of its older versions are deleted once no fork holds them. Compilation is guarded by a file
+ * lock, so parallel forks wait for one compilation instead of each parsing the workbook. The
+ * compiler streams rows to disk, so it needs as little memory as the streaming reader.<br/>
+ * File layout, all ints big endian, offsets relative to the start of the string pool:
+ * <pre>
+ * int magic, int version, int columns, int rows
+ * columns x (int offset, int length)          header names
+ * rows x columns x (int offset, int length)   cells, one row after the other
+ * UTF-8 string pool, repeated values stored once
+ * </pre>
+ * Cells are decoded straight from the mapped file when they are read, so only the projected
+ * columns of the rows handed out are ever turned into Strings.
+ */
+final class ExcelBinaryCache {
+    private static final Log log = Log.get(ExcelBinaryCache.class);
+    private static final int MAGIC = 0x4f43584c; // "OCXL"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 16;
+    private static final int REF_BYTES = 8;
+
+    private static final Map<Path, ExcelBinaryCache> instances = new ConcurrentHashMap<>();
+
+    private final Path cacheDir;
+    private final Map<String, CompiledSheet> opened = new ConcurrentHashMap<>();
+    private final Map<String, Object> compileLocks = new ConcurrentHashMap<>();
+    private final Map<String, String> hashes = new ConcurrentHashMap<>();
+
+    ExcelBinaryCache(Path cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Returns the cache of the excel.cache.dir of the configuration, one per directory and JVM.
+     * @param config
+     * @return
+     */
+    static ExcelBinaryCache getInstance(ConfigManager config) {
+        Path cacheDir = Paths.get(config.getString("excel.cache.dir", "target/excel-cache")).toAbsolutePath().normalize();
+        return instances.computeIfAbsent(cacheDir, ExcelBinaryCache::new);
+    }
+
+    /**
+     * Returns the compiled sheet, compiling it first when this version of the workbook has no cache file yet.
+     * @param filePath
+     * @param sheetName
+     * @return
+     * @throws IllegalStateException when the workbook or the sheet cannot be read
+     */
+    CompiledSheet open(String filePath, String sheetName) {
+        try {
+            Path cacheFile = cacheDir.resolve(getPrefix(filePath, sheetName) + hash(Paths.get(filePath)) + ".bin");
+            String key = cacheFile.toString();
+            CompiledSheet sheet = opened.get(key);
+            if (sheet != null) {
+                return sheet;
+            }
+            // compiled outside the map: other sheets are opened meanwhile, the same sheet waits here
+            synchronized (compileLocks.computeIfAbsent(key, k -> new Object())) {
+                sheet = opened.get(key);
+                if (sheet == null) {
+                    sheet = compileShared(filePath, sheetName, cacheFile);
+                    opened.putIfAbsent(key, sheet);
+                }
+                return sheet;
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Could not read sheet " + sheetName + " of " + filePath, e);
+        }
+    }
+
+    private static String getPrefix(String filePath, String sheetName) {
+        String workbook = Paths.get(filePath).getFileName().toString();
+        return (workbook + "-" + sheetName).replaceAll("[^A-Za-z0-9._-]", "_") + "-";
+    }
+
+    /**
+     * SHA-256 of the workbook, computed once per JVM for every size and modification time of the file.
+     */
+    private String hash(Path workbook) throws IOException {
+        String version = workbook.toAbsolutePath() + "|" + Files.size(workbook) + "|" + Files.getLastModifiedTime(workbook).toMillis();
+        String known = hashes.get(version);
+        if (known != null) {
+            return known;
+        }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new DigestInputStream(Files.newInputStream(workbook), digest)) {
+            while (in.read(buffer) != -1) {
+                // reading updates the digest
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        String hash = hex.substring(0, 32);
+        hashes.put(version, hash);
+        return hash;
+    }
+
+    private CompiledSheet compileShared(String filePath, String sheetName, Path cacheFile) {
+        try {
+            Files.createDirectories(cacheDir);
+            Path lockPath = cacheDir.resolve(cacheFile.getFileName() + ".lock");
+            try (RandomAccessFile lockFile = new RandomAccessFile(lockPath.toFile(), "rw");
+                 FileChannel channel = lockFile.getChannel();
+                 FileLock lock = channel.lock()) {
+                if (Files.exists(cacheFile)) {
+                    CompiledSheet sheet = CompiledSheet.map(cacheFile, sheetName);
+                    if (sheet != null) {
+                        return sheet;
+                    }
+                }
+                long start = System.nanoTime();
+                compile(filePath, sheetName, cacheFile);
+                log.info("Sheet {} of {} compiled in {} ms: {}", sheetName, filePath,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), cacheFile);
+                deleteOlderVersions(filePath, sheetName, cacheFile);
+                return CompiledSheet.map(cacheFile, sheetName);
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not compile sheet " + sheetName + " of " + filePath, e);
+        }
+    }
+
+    private void compile(String filePath, String sheetName, Path cacheFile) throws Exception {
+        Path tmp = Files.createTempFile(cacheDir, cacheFile.getFileName().toString(), ".tmp");
+        try (SheetWriter writer = new SheetWriter(cacheDir, cacheFile.getFileName().toString())) {
+            ExcelUtil.parseSheet(filePath, sheetName, writer::addRow);
+            writer.writeTo(tmp);
+            Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Deletes the cache files of other versions of the workbook. A version is only deleted while
+     * holding its lock, so a fork still compiling or mapping it is skipped; the lock files stay, as
+     * another fork may be waiting on them. On systems which keep mapped files open (Windows) a
+     * version still mapped by a fork cannot be deleted and is left for a later run.
+     */
+    private void deleteOlderVersions(String filePath, String sheetName, Path current) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDir, getPrefix(filePath, sheetName) + "*.bin")) {
+            for (Path file : files) {
+                if (file.equals(current)) {
+                    continue;
+                }
+                Path lockPath = cacheDir.resolve(file.getFileName() + ".lock");
+                try (RandomAccessFile lockFile = new RandomAccessFile(lockPath.toFile(), "rw");
+                     FileChannel channel = lockFile.getChannel();
+                     FileLock lock = channel.tryLock()) {
+                    if (lock != null) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (IOException | OverlappingFileLockException e) {
+                    log.debug("Old compiled sheet {} is still in use: {}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Old compiled sheets could not be deleted: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Streams the parsed rows to two temporary files, the cell references and the string pool,
+     * and joins them into the cache file at the end. Only the header and the offsets of up to
+     * DEDUP_LIMIT distinct values are kept in memory, so compiling a large sheet takes no more
+     * memory than a small one; values past that limit are stored once per occurrence.
+     */
+    private static class SheetWriter implements AutoCloseable {
+        private static final int DEDUP_LIMIT = 16384;
+
+        private final Map<String, Integer> poolOffsets = new HashMap<String, Integer>();
+        private final Path cellsFile;
+        private final Path poolFile;
+        private final DataOutputStream cells;
+        private final OutputStream pool;
+        private long poolSize;
+        private long[] header;
+        private int rows;
+
+        SheetWriter(Path dir, String name) throws IOException {
+            cellsFile = Files.createTempFile(dir, name, ".cells");
+            poolFile = Files.createTempFile(dir, name, ".pool");
+            cells = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(cellsFile), 64 * 1024));
+            pool = new BufferedOutputStream(Files.newOutputStream(poolFile), 64 * 1024);
+        }
+
+        void addRow(List<String> values) {
+            try {
+                if (header == null) {
+                    header = new long[values.size()];
+                    for (int c = 0; c < header.length; c++) {
+                        header[c] = ref(values.get(c));
+                    }
+                    return;
+                }
+                for (int c = 0; c < header.length; c++) {
+                    long ref = ref(c < values.size() ? values.get(c) : "");
+                    cells.writeLong(ref);
+                }
+                rows++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * @return offset in the string pool in the high and length in the low 32 bits
+         */
+        private long ref(String value) throws IOException {
+            if (value.isEmpty()) {
+                return 0;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            Integer offset = poolOffsets.get(value);
+            if (offset == null) {
+                if (poolSize + utf8.length > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Sheet is too large for the binary cache");
+                }
+                offset = (int) poolSize;
+                pool.write(utf8);
+                poolSize += utf8.length;
+                if (poolOffsets.size() < DEDUP_LIMIT) {
+                    poolOffsets.put(value, offset);
+                }
+            }
+            return ((long) offset << 32) | utf8.length;
+        }
+
+        /**
+         * Writes the complete cache file: header, header references, cell references, string pool.
+         * @param target
+         */
+        void writeTo(Path target) throws IOException {
+            cells.close();
+            pool.close();
+            int columnCount = header == null ? 0 : header.length;
+            long poolStart = HEADER_BYTES + (long) columnCount * (rows + 1) * REF_BYTES;
+            if (poolStart + poolSize > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Sheet is too large for the binary cache");
+            }
+            ByteBuffer head = ByteBuffer.allocate(HEADER_BYTES + columnCount * REF_BYTES);
+            head.putInt(MAGIC).putInt(VERSION).putInt(columnCount).putInt(rows);
+            for (int c = 0; c < columnCount; c++) {
+                head.putLong(header[c]);
+            }
+            ((Buffer) head).flip();
+            try (FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (head.hasRemaining()) {
+                    out.write(head);
+                }
+                append(out, cellsFile);
+                append(out, poolFile);
+            }
+        }
+
+        private static void append(FileChannel out, Path part) throws IOException {
+            try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                long size = in.size();
+                long copied = 0;
+                while (copied < size) {
+                    copied += in.transferTo(copied, size - copied, out);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                cells.close();
+                pool.close();
+            } finally {
+                Files.deleteIfExists(cellsFile);
+                Files.deleteIfExists(poolFile);
+            }
+        }
+    }
+
+    /**
+     * A memory mapped compiled sheet. Thread-safe: all reads use absolute positions.
+     */
+    static final class CompiledSheet {
+        private final ByteBuffer buffer;
+        private final String sheetName;
+        private final int columnCount;
+        private final int rowCount;
+        private final String[] header;
+        private final int poolStart;
+
+        private CompiledSheet(ByteBuffer buffer, String sheetName) {
+            this.buffer = buffer;
+            this.sheetName = sheetName;
+            this.columnCount = buffer.getInt(8);
+            this.rowCount = buffer.getInt(12);
+            this.poolStart = HEADER_BYTES + columnCount * (rowCount + 1) * REF_BYTES;
+            this.header = new String[columnCount];
+            for (int c = 0; c < columnCount; c++) {
+                header[c] = decode(HEADER_BYTES + c * REF_BYTES);
+            }
+        }
+
+        /**
+         * Maps the cache file.
+         * @return null when the file is not a complete cache file of this version
+         */
+        static CompiledSheet map(Path file, String sheetName) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < HEADER_BYTES) {
+                    return null;
+                }
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                    return null;
+                }
+                long cells = (long) buffer.getInt(8) * (buffer.getInt(12) + 1);
+                if (HEADER_BYTES + cells * REF_BYTES > size) {
+                    return null;
+                }
+                return new CompiledSheet(buffer, sheetName);
+            }
+        }
+
+        int getRowCount() {
+            return rowCount;
+        }
+
+        String getCell(int row, int column) {
+            return decode(HEADER_BYTES + ((long) (row + 1) * columnCount + column) * REF_BYTES);
+        }
+
+        private String decode(long refPosition) {
+            int offset = buffer.getInt((int) refPosition);
+            int length = buffer.getInt((int) refPosition + 4);
+            if (length == 0) {
+                return "";
+            }
+            byte[] utf8 = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            ((Buffer) view).position(poolStart + offset);
+            view.get(utf8);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Returns the selected columns of the rows matching the filter.
+         * @param columns header names, null for all columns
+         * @param rowFilter gets a view of the row which decodes only the values it is asked for
+         * @return
+         */
+        ExcelUtil.ExcelRowIterator rows(String[] columns, Predicate<Map<String, String>> rowFilter) {
+            int[] projection = ExcelUtil.buildProjection(header, columns, sheetName);
+            return new ExcelUtil.ExcelRowIterator() {
+                private int row = -1;
+                private boolean matched;
+
+                @Override
+                public boolean hasNext() {
+                    if (matched) {
+                        return true;
+                    }
+                    while (++row < rowCount) {
+                        if (rowFilter == null || rowFilter.test(new RowView(row))) {
+                            matched = true;
+                            return true;
+                        }
+                    }
+                    row = rowCount;
+                    return false;
+                }
+
+                @Override
+                public Object[] next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    matched = false;
+                    Object[] values = new Object[projection.length];
+                    for (int i = 0; i < projection.length; i++) {
+                        values[i] = getCell(row, projection[i]);
+                    }
+                    return values;
+                }
+
+                @Override
+                public void close() {
+                    row = rowCount;
+                    matched = false;
+                }
+            };
+        }
+
+        /**
+         * Read-only header name to value view of one row for row filters.
+         */
+        private class RowView extends AbstractMap<String, String> {
+            private final int row;
+
+            RowView(int row) {
+                this.row = row;
+            }
+
+            @Override
+            public String get(Object key) {
+                for (int c = 0; c < columnCount; c++) {
+                    if (header[c].equals(key)) {
+                        return getCell(row, c);
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return Arrays.asList(header).contains(key);
+            }
+
+            @Override
+            public Set<Entry<String, String>> entrySet() {
+                Map<String, String> values = new LinkedHashMap<String, String>();
+                for (int c = 0; c < columnCount; c++) {
+                    values.put(header[c], getCell(row, c));
+                }
+                return Collections.unmodifiableMap(values).entrySet();
+            }
+        }
+    }
+}
@@ -1,4 +1,339 @@
 package com.qa.opencart.utils;
 
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Streams test data out of xlsx workbooks for TestNG data providers.<br/>
+ * Sheets are parsed with the XSSF event (SAX) API on a background thread which hands rows
+ * over through a small bounded queue, so memory use stays the same whatever the size of the sheet.<br/>
+ * The first row of a sheet is its header; every other row becomes one Object[] of cell values
+ * formatted as shown in Excel, with empty cells as "".<br/>
+ * With excel.cache.enabled (default true) a sheet is parsed only once per workbook version:
+ * ExcelBinaryCache compiles it into a binary file which later runs and parallel forks read
+ * memory mapped instead of parsing the xlsx again.
+ * <pre>
+ * &#64;DataProvider
+ * public Iterator&lt;Object[]&gt; loginData() {
+ *     return ExcelUtil.getTestData("src/test/resources/testdata/login.xlsx", "login", null, null);
+ * }
+ * </pre>
+ */
 public class ExcelUtil {
+    private static final int QUEUE_CAPACITY = 256;
+    private static final Object[] END_OF_SHEET = new Object[0];
+    private static final long ABANDON_CHECK_MILLIS = 200;
+
+    /**
+     * Returns the selected columns of the rows matching the filter.
+     * @param filePath path of the xlsx workbook
+     * @param sheetName
+     * @param columns header names of the columns to return, in that order; null for all columns
+     * @param rowFilter gets each row as header name to value; null to keep every row
+     * @return a lazy iterator, which should be closed when it is not read to the end
+     */
+    public static ExcelRowIterator getTestData(String filePath, String sheetName, String[] columns,
+                                               Predicate<Map<String, String>> rowFilter) {
+        return getTestData(filePath, sheetName, columns, rowFilter, ConfigManager.getInstance());
+    }
+
+    /**
+     * Returns the selected columns of the rows matching the filter, reading excel.cache.enabled
+     * and excel.cache.dir from the given configuration.
+     * @param filePath path of the xlsx workbook
+     * @param sheetName
+     * @param columns header names of the columns to return, in that order; null for all columns
+     * @param rowFilter gets each row as header name to value; null to keep every row
+     * @param config
+     * @return a lazy iterator, which should be closed when it is not read to the end
+     */
+    public static ExcelRowIterator getTestData(String filePath, String sheetName, String[] columns,
+                                               Predicate<Map<String, String>> rowFilter, ConfigManager config) {
+        if (config.getBoolean("excel.cache.enabled", true)) {
+            return ExcelBinaryCache.getInstance(config).open(filePath, sheetName).rows(columns, rowFilter);
+        }
+        SheetFeed feed = new SheetFeed(filePath, sheetName, columns, rowFilter);
+        StreamingRowIterator rows = new StreamingRowIterator(feed);
+        feed.owner = new WeakReference<StreamingRowIterator>(rows);
+        Thread reader = new Thread(feed::parse, "excel-reader-" + sheetName);
+        reader.setDaemon(true);
+        reader.start();
+        return rows;
+    }
+
+    /**
+     * Rows of a sheet as Object[] of the selected columns. Close it when it is not read to the end.
+     */
+    public abstract static class ExcelRowIterator implements Iterator<Object[]>, AutoCloseable {
+
+        ExcelRowIterator() {
+        }
+
+        @Override
+        public abstract void close();
+    }
+
+    /**
+     * Iterator fed by the SAX parser thread.
+     */
+    private static class StreamingRowIterator extends ExcelRowIterator {
+        private final SheetFeed feed;
+        private Object[] next;
+        private boolean finished;
+
+        StreamingRowIterator(SheetFeed feed) {
+            this.feed = feed;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !finished) {
+                try {
+                    next = feed.queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while reading sheet " + feed.sheetName, e);
+                }
+                if (next == END_OF_SHEET) {
+                    next = null;
+                    finished = true;
+                    feed.closed = true;
+                    if (feed.failure != null) {
+                        throw new IllegalStateException("Could not read sheet " + feed.sheetName + " of " + feed.filePath, feed.failure);
+                    }
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Object[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Object[] row = next;
+            next = null;
+            return row;
+        }
+
+        /**
+         * Stops the parser thread when the rows are not read to the end.
+         */
+        @Override
+        public void close() {
+            feed.closed = true;
+            finished = true;
+            feed.queue.clear();
+        }
+    }
+
+    /**
+     * The parser thread's side of a StreamingRowIterator. It holds the iterator only weakly: a data
+     * provider which drops the iterator without closing it lets it be garbage collected, and the
+     * parser, waiting for room in the queue, notices that and stops, closing the workbook.
+     */
+    private static class SheetFeed {
+        private final String filePath;
+        private final String sheetName;
+        private final String[] columns;
+        private final Predicate<Map<String, String>> rowFilter;
+        private final BlockingQueue<Object[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private WeakReference<StreamingRowIterator> owner;
+
+        private volatile boolean closed;
+        private volatile Throwable failure;
+
+        private String[] header;
+        private int[] projection;
+
+        SheetFeed(String filePath, String sheetName, String[] columns, Predicate<Map<String, String>> rowFilter) {
+            this.filePath = filePath;
+            this.sheetName = sheetName;
+            this.columns = columns;
+            this.rowFilter = rowFilter;
+        }
+
+        private void parse() {
+            try {
+                parseSheet(filePath, sheetName, this::onRow);
+            } catch (ParsingStopped e) {
+                // closed or abandoned
+            } catch (Exception e) {
+                failure = e;
+            } finally {
+                if (!closed) {
+                    try {
+                        putRow(END_OF_SHEET);
+                    } catch (ParsingStopped e) {
+                        // nobody left to tell
+                    }
+                }
+            }
+        }
+
+        private void onRow(List<String> cells) {
+            if (closed) {
+                throw new ParsingStopped();
+            }
+            if (header == null) {
+                header = cells.toArray(new String[0]);
+                projection = buildProjection(header, columns, sheetName);
+                return;
+            }
+            if (rowFilter != null && !rowFilter.test(asMap(header, cells))) {
+                return;
+            }
+            Object[] row = new Object[projection.length];
+            for (int i = 0; i < projection.length; i++) {
+                row[i] = projection[i] < cells.size() ? cells.get(projection[i]) : "";
+            }
+            putRow(row);
+        }
+
+        /**
+         * Waits for room in the queue, giving up once the iterator is closed or garbage collected.
+         */
+        private void putRow(Object[] row) {
+            try {
+                while (!queue.offer(row, ABANDON_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (closed || owner.get() == null) {
+                        closed = true;
+                        throw new ParsingStopped();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ParsingStopped();
+            }
+        }
+    }
+
+    /**
+     * Parses the sheet with the XSSF event API and passes every row, the header included,
+     * to the consumer. The list is reused for the next row.
+     * @param filePath
+     * @param sheetName
+     * @param rowConsumer
+     * @throws Exception when the workbook cannot be read or has no such sheet
+     */
+    static void parseSheet(String filePath, String sheetName, Consumer<List<String>> rowConsumer) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(filePath, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+            StylesTable styles = reader.getStylesTable();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    if (sheets.getSheetName().equals(sheetName)) {
+                        XMLReader parser = XMLHelper.newXMLReader();
+                        parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings,
+                                new RowHandler(rowConsumer), new DataFormatter(), false));
+                        parser.parse(new InputSource(sheet));
+                        return;
+                    }
+                }
+            }
+            throw new IllegalArgumentException("Sheet " + sheetName + " not found in " + filePath);
+        }
+    }
+
+    /**
+     * Maps the requested column names to their positions in the header.
+     * @param header
+     * @param columns null for all columns
+     * @param sheetName
+     * @return
+     */
+    static int[] buildProjection(String[] header, String[] columns, String sheetName) {
+        if (columns == null) {
+            int[] all = new int[header.length];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        List<String> names = Arrays.asList(header);
+        int[] selected = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            selected[i] = names.indexOf(columns[i]);
+            if (selected[i] < 0) {
+                throw new IllegalArgumentException("Column " + columns[i] + " not found in sheet " + sheetName);
+            }
+        }
+        return selected;
+    }
+
+    private static Map<String, String> asMap(String[] header, List<String> cells) {
+        Map<String, String> row = new HashMap<String, String>();
+        for (int i = 0; i < header.length; i++) {
+            row.put(header[i], i < cells.size() ? cells.get(i) : "");
+        }
+        return Collections.unmodifiableMap(row);
+    }
+
+    /**
+     * Collects the cells of a row and passes finished rows to the consumer.
+     */
+    private static class RowHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final Consumer<List<String>> rowConsumer;
+        private final List<String> cells = new ArrayList<String>();
+
+        RowHandler(Consumer<List<String>> rowConsumer) {
+            this.rowConsumer = rowConsumer;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int col = cellReference == null ? cells.size() : new CellReference(cellReference).getCol();
+            while (cells.size() < col) {
+                cells.add("");
+            }
+            cells.add(formattedValue == null ? "" : formattedValue);
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            rowConsumer.accept(cells);
+        }
+    }
+
+    /**
+     * Thrown inside the SAX callbacks to abort parsing after close().
+     */
+    private static class ParsingStopped extends RuntimeException {
+        ParsingStopped() {
+            super(null, null, false, false);
+        }
+    }
 }
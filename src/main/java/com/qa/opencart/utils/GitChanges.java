@@ -0,0 +1,213 @@
+package com.qa.opencart.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The files changed between a git ref and the working tree, with the changed line ranges of
+ * every file, as reported by git diff -U0. Paths are relative to the working directory.
+ */
+public final class GitChanges {
+    private static final Pattern HUNK_HEADER = Pattern.compile("^@@ -\\d+(?:,\\d+)? \\+(\\d+)(?:,(\\d+))? @@");
+    private static final long GIT_TIMEOUT_SECONDS = 60;
+
+    private GitChanges() {
+    }
+
+    /**
+     * One changed region of a file.
+     */
+    public static final class Hunk {
+        private final int newStart;
+        private final int newCount;
+        private final List<String> added = new ArrayList<String>();
+        private final List<String> removed = new ArrayList<String>();
+
+        Hunk(int newStart, int newCount) {
+            this.newStart = newStart;
+            this.newCount = newCount;
+        }
+
+        /**
+         * @return first line of the region in the new file; for a pure deletion the line after which lines were removed
+         */
+        public int getNewStart() {
+            return newStart;
+        }
+
+        /**
+         * @return number of lines of the region in the new file, 0 for a pure deletion
+         */
+        public int getNewCount() {
+            return newCount;
+        }
+
+        /**
+         * @return the new lines, the first one being line getNewStart()
+         */
+        public List<String> getAdded() {
+            return added;
+        }
+
+        public List<String> getRemoved() {
+            return removed;
+        }
+    }
+
+    /**
+     * One changed file.
+     */
+    public static final class FileChange {
+        private final String path;
+        private final boolean wholeFile;
+        private final boolean deleted;
+        private final List<Hunk> hunks = new ArrayList<Hunk>();
+
+        FileChange(String path, boolean wholeFile) {
+            this(path, wholeFile, false);
+        }
+
+        FileChange(String path, boolean wholeFile, boolean deleted) {
+            this.path = path;
+            this.wholeFile = wholeFile;
+            this.deleted = deleted;
+        }
+
+        /**
+         * @return path relative to the working directory, with forward slashes
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return true for new, deleted, untracked and binary files, which have no usable line ranges
+         */
+        public boolean isWholeFile() {
+            return wholeFile;
+        }
+
+        /**
+         * @return true when the file was deleted; getPath() is then its old path
+         */
+        public boolean isDeleted() {
+            return deleted;
+        }
+
+        public List<Hunk> getHunks() {
+            return hunks;
+        }
+    }
+
+    /**
+     * Runs git diff against the ref (committed and uncommitted changes) and adds the untracked files.
+     * Deleted files are reported with their old path.
+     * @param baseRef e.g. origin/main
+     * @return
+     * @throws IOException when git fails, e.g. for an unknown ref
+     */
+    public static List<FileChange> read(String baseRef) throws IOException {
+        List<FileChange> changes = parseDiff(git("diff", "-U0", "--no-color", "--no-ext-diff", "--no-renames",
+                "--relative", baseRef, "--"));
+        for (String path : git("ls-files", "--others", "--exclude-standard").split("\n")) {
+            if (!path.trim().isEmpty()) {
+                changes.add(new FileChange(path.trim(), true));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Parses the output of git diff -U0.
+     * @param diff
+     * @return
+     */
+    public static List<FileChange> parseDiff(String diff) {
+        List<FileChange> changes = new ArrayList<FileChange>();
+        FileChange file = null;
+        Hunk hunk = null;
+        boolean newFile = false;
+        String source = null;
+        for (String line : diff.split("\n", -1)) {
+            if (line.startsWith("diff --git ")) {
+                file = null;
+                hunk = null;
+                newFile = false;
+                source = null;
+            } else if (line.startsWith("new file mode")) {
+                newFile = true;
+            } else if (hunk == null && line.startsWith("--- ")) {
+                source = line.substring(4).trim();
+            } else if (hunk == null && line.startsWith("+++ ")) {
+                String target = line.substring(4).trim();
+                if (!target.equals("/dev/null")) {
+                    file = new FileChange(stripPrefix(target, "b/"), newFile);
+                    changes.add(file);
+                } else if (source != null && !source.equals("/dev/null")) {
+                    changes.add(new FileChange(stripPrefix(source, "a/"), true, true));
+                }
+            } else if (line.startsWith("Binary files ") && line.endsWith(" differ")) {
+                int and = line.lastIndexOf(" and ");
+                String target = line.substring(and + 5, line.length() - " differ".length());
+                if (!target.equals("/dev/null")) {
+                    changes.add(new FileChange(stripPrefix(target, "b/"), true));
+                } else {
+                    changes.add(new FileChange(stripPrefix(line.substring("Binary files ".length(), and), "a/"), true, true));
+                }
+            } else if (file != null && line.startsWith("@@")) {
+                Matcher matcher = HUNK_HEADER.matcher(line);
+                if (matcher.find()) {
+                    hunk = new Hunk(Integer.parseInt(matcher.group(1)),
+                            matcher.group(2) == null ? 1 : Integer.parseInt(matcher.group(2)));
+                    file.hunks.add(hunk);
+                }
+            } else if (hunk != null && line.startsWith("+")) {
+                hunk.added.add(line.substring(1));
+            } else if (hunk != null && line.startsWith("-")) {
+                hunk.removed.add(line.substring(1));
+            }
+        }
+        return changes;
+    }
+
+    private static String stripPrefix(String path, String prefix) {
+        return path.startsWith(prefix) ? path.substring(prefix.length()) : path;
+    }
+
+    private static String git(String... args) throws IOException {
+        List<String> command = new ArrayList<String>(Collections.singletonList("git"));
+        command.addAll(Arrays.asList(args));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream in = process.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+        }
+        try {
+            if (!process.waitFor(GIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                throw new IOException("git " + args[0] + " did not finish within " + GIT_TIMEOUT_SECONDS + " seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for git", e);
+        }
+        String text = new String(output.toByteArray(), StandardCharsets.UTF_8);
+        if (process.exitValue() != 0) {
+            throw new IOException("git " + String.join(" ", args) + " failed: " + text.trim());
+        }
+        return text;
+    }
+}
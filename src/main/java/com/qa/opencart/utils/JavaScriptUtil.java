@@ -1,4 +1,366 @@
 package com.qa.opencart.utils;
 
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk queries which resolve a By locator and read all matches in one executeScript call.<br/>
+ * Every method returns null when the script cannot run (driver without JavaScript support,
+ * locator strategy without a JavaScript equivalent, script error), so the caller can fall
+ * back to per-element WebDriver calls.
+ */
 public class JavaScriptUtil {
+    private WebDriver driver;
+
+    /**
+     * JavaScript function resolve(using, value) returning an array of the matching elements.
+     * Mirrors the locator strategies reported by By.Remotable, including id, name and class name.
+     */
+    static final String RESOLVE_FUNCTION =
+            "function resolve(using, value) {"
+            + "  var found = [], i;"
+            + "  if (using === 'css selector') {"
+            + "    return Array.prototype.slice.call(document.querySelectorAll(value));"
+            + "  }"
+            + "  if (using === 'xpath') {"
+            + "    var snap = document.evaluate(value, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);"
+            + "    for (i = 0; i < snap.snapshotLength; i++) { found.push(snap.snapshotItem(i)); }"
+            + "    return found;"
+            + "  }"
+            + "  if (using === 'id' || using === 'name') {"
+            + "    return Array.prototype.slice.call(document.querySelectorAll("
+            + "        '[' + using + '=\"' + value.replace(/[\"\\\\]/g, '\\\\$&') + '\"]'));"
+            + "  }"
+            + "  if (using === 'class name') {"
+            + "    return Array.prototype.slice.call(document.getElementsByClassName(value));"
+            + "  }"
+            + "  if (using === 'tag name') {"
+            + "    return Array.prototype.slice.call(document.getElementsByTagName(value));"
+            + "  }"
+            + "  if (using === 'link text' || using === 'partial link text') {"
+            + "    var links = document.getElementsByTagName('a');"
+            + "    for (i = 0; i < links.length; i++) {"
+            + "      var text = (links[i].innerText || '').trim();"
+            + "      if (using === 'link text' ? text === value : text.indexOf(value) !== -1) { found.push(links[i]); }"
+            + "    }"
+            + "    return found;"
+            + "  }"
+            + "  throw new Error('Unsupported locator strategy: ' + using);"
+            + "}";
+
+    /**
+     * JavaScript function visible(element), an approximation of WebElement.isDisplayed().
+     */
+    static final String VISIBLE_FUNCTION =
+            "function visible(e) {"
+            + "  if (!(e.offsetWidth || e.offsetHeight || e.getClientRects().length)) { return false; }"
+            + "  var style = window.getComputedStyle(e);"
+            + "  return style.visibility !== 'hidden' && style.display !== 'none';"
+            + "}";
+
+    private static final String TEXTS_SCRIPT = RESOLVE_FUNCTION + VISIBLE_FUNCTION
+            + "return resolve(arguments[0], arguments[1]).map(function (e) {"
+            + "  return visible(e) ? (e.innerText || '').trim() : '';"
+            + "});";
+
+    private static final String ATTRIBUTES_SCRIPT = RESOLVE_FUNCTION
+            + "var name = arguments[2];"
+            + "return resolve(arguments[0], arguments[1]).map(function (e) {"
+            + "  var prop = e[name];"
+            + "  if (typeof prop === 'boolean') { return prop ? 'true' : null; }"
+            + "  if (prop !== undefined && prop !== null && typeof prop !== 'object' && typeof prop !== 'function') {"
+            + "    return String(prop);"
+            + "  }"
+            + "  return e.getAttribute(name);"
+            + "});";
+
+    private static final String VISIBILITY_SCRIPT = RESOLVE_FUNCTION + VISIBLE_FUNCTION
+            + "return resolve(arguments[0], arguments[1]).map(visible);";
+
+    private static final String FIRST_MATCHES_SCRIPT = RESOLVE_FUNCTION
+            + "return arguments[0].map(function (q) {"
+            + "  if (!q) { return null; }"
+            + "  try { return resolve(q[0], q[1])[0] || null; } catch (e) { return null; }"
+            + "});";
+
+    private static final String FILL_FORM_SCRIPT = RESOLVE_FUNCTION
+            + "var skipped = [];"
+            + "arguments[0].forEach(function (f, i) {"
+            + "  var e = null;"
+            + "  try { e = f[0] ? resolve(f[0], f[1])[0] : null; } catch (err) { e = null; }"
+            + "  if (!e || e.disabled || e.readOnly) { skipped.push(i); return; }"
+            + "  var tag = e.tagName.toLowerCase(), type = (e.type || '').toLowerCase(), text = f[2];"
+            + "  if (type === 'file') { skipped.push(i); return; }"
+            + "  e.focus();"
+            + "  if (type === 'checkbox' || type === 'radio') {"
+            + "    e.checked = text === 'true';"
+            + "  } else if (tag === 'select') {"
+            + "    var option = Array.prototype.filter.call(e.options, function (o) {"
+            + "      return o.value === text || o.text.trim() === text;"
+            + "    })[0];"
+            + "    if (!option) { skipped.push(i); return; }"
+            + "    e.value = option.value;"
+            + "  } else if (tag === 'input' || tag === 'textarea') {"
+            + "    var proto = tag === 'input' ? HTMLInputElement.prototype : HTMLTextAreaElement.prototype;"
+            + "    Object.getOwnPropertyDescriptor(proto, 'value').set.call(e, text);"
+            + "  } else if (e.isContentEditable) {"
+            + "    e.textContent = text;"
+            + "  } else {"
+            + "    skipped.push(i); return;"
+            + "  }"
+            + "  e.dispatchEvent(new Event('input', {bubbles: true}));"
+            + "  e.dispatchEvent(new Event('change', {bubbles: true}));"
+            + "  e.blur();"
+            + "});"
+            + "return skipped;";
+
+    private static final String PAGE_STATE_SCRIPT = RESOLVE_FUNCTION + VISIBLE_FUNCTION
+            + "return {"
+            + "  title: document.title, url: window.location.href, readyState: document.readyState,"
+            + "  elements: arguments[0].map(function (q) {"
+            + "    if (!q) { return null; }"
+            + "    var found;"
+            + "    try { found = resolve(q[0], q[1]); } catch (e) { return null; }"
+            + "    var first = found[0], shown = !!first && visible(first);"
+            + "    return {count: found.length, visible: shown,"
+            + "        text: q[2] && first ? (shown ? (first.innerText || '').trim() : '') : null};"
+            + "  })"
+            + "};";
+
+    private static final String ELEMENT_CONDITIONS_SCRIPT = RESOLVE_FUNCTION + VISIBLE_FUNCTION
+            + "return arguments[0].map(function (q) {"
+            + "  var found;"
+            + "  try { found = resolve(q[0], q[1]); } catch (e) { return null; }"
+            + "  for (var i = 0; i < found.length; i++) {"
+            + "    var shown = q[2] === 'present' || visible(found[i]);"
+            + "    if (q[2] === 'invisible') {"
+            + "      if (shown) { return false; }"
+            + "    } else if (shown) {"
+            + "      return found[i];"
+            + "    }"
+            + "  }"
+            + "  return q[2] === 'invisible';"
+            + "});";
+
+    public JavaScriptUtil(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    /**
+     * Checks whether the driver can execute JavaScript at all.
+     * @return
+     */
+    public boolean isAvailable() {
+        return driver instanceof JavascriptExecutor;
+    }
+
+    /**
+     * Returns the visible text of every element matching the locator, in document order.<br/>
+     * Hidden elements give an empty String, like WebElement.getText().
+     * @param locator
+     * @return the list of texts, or null when the bulk query is not possible
+     */
+    public List<String> getTexts(By locator) {
+        return toStringList(runQuery(TEXTS_SCRIPT, locator));
+    }
+
+    /**
+     * Returns the attribute value of every element matching the locator, in document order.
+     * @param locator
+     * @param attrName
+     * @return the list of values, or null when the bulk query is not possible
+     */
+    public List<String> getAttributes(By locator, String attrName) {
+        return toStringList(runQuery(ATTRIBUTES_SCRIPT, locator, attrName));
+    }
+
+    /**
+     * Returns the displayed state of every element matching the locator, in document order.
+     * @param locator
+     * @return the list of flags, or null when the bulk query is not possible
+     */
+    public List<Boolean> getVisibility(By locator) {
+        List<?> result = runQuery(VISIBILITY_SCRIPT, locator);
+        if (result == null) {
+            return null;
+        }
+        List<Boolean> flags = new ArrayList<Boolean>();
+        for (Object o : result) {
+            flags.add(Boolean.TRUE.equals(o));
+        }
+        return flags;
+    }
+
+    /**
+     * Resolves the first match of every locator in one call.<br/>
+     * Locators without a match or without a JavaScript equivalent give a null entry.
+     * @param locators
+     * @return the elements in the order of the locators, or null when the script could not run
+     */
+    public List<WebElement> findFirstElements(List<By> locators) {
+        if (!isAvailable()) {
+            return null;
+        }
+        List<List<String>> queries = new ArrayList<List<String>>();
+        for (By locator : locators) {
+            String[] query = toQuery(locator);
+            queries.add(query == null ? null : Arrays.asList(query));
+        }
+        try {
+            Object result = ((JavascriptExecutor) driver).executeScript(FIRST_MATCHES_SCRIPT, queries);
+            if (!(result instanceof List) || ((List<?>) result).size() != locators.size()) {
+                return null;
+            }
+            List<WebElement> elements = new ArrayList<WebElement>();
+            for (Object o : (List<?>) result) {
+                elements.add(o instanceof WebElement ? (WebElement) o : null);
+            }
+            return elements;
+        } catch (WebDriverException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Sets the value of every field in one call and fires input and change events on it,
+     * so page scripts react as if the user had typed.<br/>
+     * Text inputs and textareas get the value, selects the option with that value or text,
+     * checkboxes and radio buttons are checked for "true".
+     * @param fieldValues locator to value, filled in iteration order
+     * @return the locators which could not be filled (missing, disabled, read-only, file input,
+     * unknown option), or null when the script could not run
+     */
+    public List<By> fillFields(Map<By, String> fieldValues) {
+        if (!isAvailable()) {
+            return null;
+        }
+        List<By> locators = new ArrayList<By>(fieldValues.keySet());
+        List<List<String>> fields = new ArrayList<List<String>>();
+        for (By locator : locators) {
+            String[] query = toQuery(locator);
+            fields.add(query == null
+                    ? Arrays.asList(null, null, fieldValues.get(locator))
+                    : Arrays.asList(query[0], query[1], fieldValues.get(locator)));
+        }
+        try {
+            Object result = ((JavascriptExecutor) driver).executeScript(FILL_FORM_SCRIPT, fields);
+            if (!(result instanceof List)) {
+                return null;
+            }
+            List<By> skipped = new ArrayList<By>();
+            for (Object index : (List<?>) result) {
+                skipped.add(locators.get(((Number) index).intValue()));
+            }
+            return skipped;
+        } catch (WebDriverException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads title, url, document.readyState and, per locator, the number of matches, whether the
+     * first match is displayed and, when asked for, its text, all in one call.
+     * @param locators
+     * @param textLocators the locators whose text is read
+     * @return title, url, readyState and elements (one map with count, visible and text per locator,
+     * null for a locator without a JavaScript equivalent), or null when the script could not run
+     */
+    public Map<?, ?> getPageState(List<By> locators, Set<By> textLocators) {
+        if (!isAvailable()) {
+            return null;
+        }
+        List<List<Object>> queries = new ArrayList<List<Object>>();
+        for (By locator : locators) {
+            String[] query = toQuery(locator);
+            queries.add(query == null ? null : Arrays.<Object>asList(query[0], query[1], textLocators.contains(locator)));
+        }
+        try {
+            Object result = ((JavascriptExecutor) driver).executeScript(PAGE_STATE_SCRIPT, queries);
+            if (!(result instanceof Map) || !(((Map<?, ?>) result).get("elements") instanceof List)
+                    || ((List<?>) ((Map<?, ?>) result).get("elements")).size() != locators.size()) {
+                return null;
+            }
+            return (Map<?, ?>) result;
+        } catch (WebDriverException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks the element conditions of several locators with one executeScript call.
+     * @param queries per locator its strategy, value and present, visible or invisible
+     * @return per query the first matching element for present and visible, true or false for
+     * invisible, or null when the query cannot run in the browser; null when the script could not run
+     */
+    List<?> checkElements(List<List<String>> queries) {
+        if (!isAvailable()) {
+            return null;
+        }
+        try {
+            Object result = ((JavascriptExecutor) driver).executeScript(ELEMENT_CONDITIONS_SCRIPT, queries);
+            return result instanceof List && ((List<?>) result).size() == queries.size() ? (List<?>) result : null;
+        } catch (WebDriverException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Executes the script with the W3C strategy and value of the locator as first arguments.
+     * @param script
+     * @param locator
+     * @param extraArgs
+     * @return the script result, or null when the script could not run
+     */
+    List<?> runQuery(String script, By locator, Object... extraArgs) {
+        String[] query = toQuery(locator);
+        if (query == null || !isAvailable()) {
+            return null;
+        }
+        Object[] args = new Object[2 + extraArgs.length];
+        args[0] = query[0];
+        args[1] = query[1];
+        System.arraycopy(extraArgs, 0, args, 2, extraArgs.length);
+        try {
+            Object result = ((JavascriptExecutor) driver).executeScript(script, args);
+            return result instanceof List ? (List<?>) result : null;
+        } catch (WebDriverException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Translates a By into its W3C locator strategy and value, e.g. {"css selector", "#input-email"}.
+     * @param locator
+     * @return the strategy and value, or null when the locator has no remote form
+     */
+    static String[] toQuery(By locator) {
+        if (!(locator instanceof By.Remotable)) {
+            return null;
+        }
+        By.Remotable.Parameters params = ((By.Remotable) locator).getRemoteParameters();
+        if (!(params.value() instanceof String)) {
+            return null;
+        }
+        return new String[] {params.using(), (String) params.value()};
+    }
+
+    private static List<String> toStringList(List<?> result) {
+        if (result == null) {
+            return null;
+        }
+        List<String> values = new ArrayList<String>();
+        for (Object o : result) {
+            values.add(o == null ? null : String.valueOf(o));
+        }
+        return values;
+    }
 }
@@ -0,0 +1,73 @@
+package com.qa.opencart.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with logarithmic buckets.<br/>
+ * Bucket i holds values between 1.1^i and 1.1^(i+1) microseconds, so percentiles are
+ * accurate to about 10% from 1 microsecond up to several hours while the histogram
+ * stays a fixed 300 counters.
+ */
+public class LatencyHistogram {
+    private static final double BASE = 1.1;
+    private static final double LOG_BASE = Math.log(BASE);
+    private static final int BUCKETS = 300;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records one measurement.
+     * @param nanos
+     */
+    public void record(long nanos) {
+        long micros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos));
+        int bucket = Math.min(BUCKETS - 1, (int) (Math.log(micros) / LOG_BASE));
+        counts.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public double getMeanMillis() {
+        long n = count.get();
+        return n == 0 ? 0 : totalNanos.get() / 1e6 / n;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    public double getTotalMillis() {
+        return totalNanos.get() / 1e6;
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding the given percentile.
+     * @param percentile between 0 and 100
+     * @return the latency in milliseconds
+     */
+    public double getPercentileMillis(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(n * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(Math.pow(BASE, i + 1) / 1000.0, getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+}
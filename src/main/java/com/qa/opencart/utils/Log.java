@@ -0,0 +1,342 @@
+package com.qa.opencart.utils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Logging facade of the framework.<br/>
+ * A logger takes its level from log.level (default INFO), overridden per package or class with
+ * log.level.&lt;name&gt;, e.g. log.level.com.qa.opencart.utils = DEBUG. The level is resolved on first
+ * use and kept in a field, so a call on a disabled level costs one comparison: no message is built,
+ * no event allocated. Primitive arguments are still boxed at the call site, which a hot path
+ * avoids by checking isDebugEnabled() first.<br/>
+ * Messages take {} placeholders and are formatted on the calling thread; a Throwable as the last
+ * argument without a placeholder of its own is printed with its stack trace. Every event carries
+ * the LogContext of the calling thread (test name, browser session).<br/>
+ * With log.async (default true) the events go through the AsyncLogAppender ring buffer
+ * (log.buffer.size events, default 8192) and one background thread writes them, so test threads
+ * never wait for the console; log.async = false writes them on the calling thread.
+ * <pre>
+ * private static final Log log = Log.get(DriverFactory.class);
+ *
+ * log.info("{} driver started in {} ms", browserName, millis);
+ * </pre>
+ */
+public final class Log {
+
+    public enum Level {
+        TRACE, DEBUG, INFO, WARN, ERROR, OFF
+    }
+
+    private static final int UNRESOLVED = -1;
+    private static final Object[] NO_ARGS = new Object[0];
+    private static final ConcurrentMap<String, Log> loggers = new ConcurrentHashMap<>();
+    private static volatile Settings settings;
+
+    private final String name;
+    private final String shortName;
+    private final AsyncLogAppender appender;
+    // written without synchronization: every thread resolves the same value
+    private int threshold;
+
+    private Log(String name, int threshold, AsyncLogAppender appender) {
+        this.name = name;
+        this.shortName = name.substring(name.lastIndexOf('.') + 1);
+        this.threshold = threshold;
+        this.appender = appender;
+    }
+
+    /**
+     * A logger with a fixed level writing to the given appender instead of the configured one.
+     * @param name
+     * @param level
+     * @param appender
+     */
+    public Log(String name, Level level, AsyncLogAppender appender) {
+        this(name, level.ordinal(), appender);
+    }
+
+    /**
+     * Returns the logger named after the class, configured by log.level.
+     * @param type
+     * @return
+     */
+    public static Log get(Class<?> type) {
+        return get(type.getName());
+    }
+
+    public static Log get(String name) {
+        return loggers.computeIfAbsent(name, n -> new Log(n, UNRESOLVED, null));
+    }
+
+    /**
+     * Waits until the events logged so far have been written.
+     * @param timeOut
+     * @return false when the timeout elapsed first
+     */
+    public static boolean flush(Duration timeOut) {
+        Settings current = settings;
+        return current == null || current.appender == null || current.appender.flush(timeOut);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.ordinal() >= threshold();
+    }
+
+    public boolean isTraceEnabled() {
+        return threshold() <= Level.TRACE.ordinal();
+    }
+
+    public boolean isDebugEnabled() {
+        return threshold() <= Level.DEBUG.ordinal();
+    }
+
+    public boolean isInfoEnabled() {
+        return threshold() <= Level.INFO.ordinal();
+    }
+
+    public boolean isWarnEnabled() {
+        return threshold() <= Level.WARN.ordinal();
+    }
+
+    public boolean isErrorEnabled() {
+        return threshold() <= Level.ERROR.ordinal();
+    }
+
+    public void trace(String message) {
+        if (isTraceEnabled()) {
+            emit(Level.TRACE, message, NO_ARGS);
+        }
+    }
+
+    public void trace(String format, Object arg) {
+        if (isTraceEnabled()) {
+            emit(Level.TRACE, format, new Object[]{arg});
+        }
+    }
+
+    public void trace(String format, Object arg1, Object arg2) {
+        if (isTraceEnabled()) {
+            emit(Level.TRACE, format, new Object[]{arg1, arg2});
+        }
+    }
+
+    public void trace(String format, Object... args) {
+        if (isTraceEnabled()) {
+            emit(Level.TRACE, format, args);
+        }
+    }
+
+    public void debug(String message) {
+        if (isDebugEnabled()) {
+            emit(Level.DEBUG, message, NO_ARGS);
+        }
+    }
+
+    public void debug(String format, Object arg) {
+        if (isDebugEnabled()) {
+            emit(Level.DEBUG, format, new Object[]{arg});
+        }
+    }
+
+    public void debug(String format, Object arg1, Object arg2) {
+        if (isDebugEnabled()) {
+            emit(Level.DEBUG, format, new Object[]{arg1, arg2});
+        }
+    }
+
+    public void debug(String format, Object... args) {
+        if (isDebugEnabled()) {
+            emit(Level.DEBUG, format, args);
+        }
+    }
+
+    public void info(String message) {
+        if (isInfoEnabled()) {
+            emit(Level.INFO, message, NO_ARGS);
+        }
+    }
+
+    public void info(String format, Object arg) {
+        if (isInfoEnabled()) {
+            emit(Level.INFO, format, new Object[]{arg});
+        }
+    }
+
+    public void info(String format, Object arg1, Object arg2) {
+        if (isInfoEnabled()) {
+            emit(Level.INFO, format, new Object[]{arg1, arg2});
+        }
+    }
+
+    public void info(String format, Object... args) {
+        if (isInfoEnabled()) {
+            emit(Level.INFO, format, args);
+        }
+    }
+
+    public void warn(String message) {
+        if (isWarnEnabled()) {
+            emit(Level.WARN, message, NO_ARGS);
+        }
+    }
+
+    public void warn(String format, Object arg) {
+        if (isWarnEnabled()) {
+            emit(Level.WARN, format, new Object[]{arg});
+        }
+    }
+
+    public void warn(String format, Object arg1, Object arg2) {
+        if (isWarnEnabled()) {
+            emit(Level.WARN, format, new Object[]{arg1, arg2});
+        }
+    }
+
+    public void warn(String format, Object... args) {
+        if (isWarnEnabled()) {
+            emit(Level.WARN, format, args);
+        }
+    }
+
+    public void error(String message) {
+        if (isErrorEnabled()) {
+            emit(Level.ERROR, message, NO_ARGS);
+        }
+    }
+
+    public void error(String format, Object arg) {
+        if (isErrorEnabled()) {
+            emit(Level.ERROR, format, new Object[]{arg});
+        }
+    }
+
+    public void error(String format, Object arg1, Object arg2) {
+        if (isErrorEnabled()) {
+            emit(Level.ERROR, format, new Object[]{arg1, arg2});
+        }
+    }
+
+    public void error(String format, Object... args) {
+        if (isErrorEnabled()) {
+            emit(Level.ERROR, format, args);
+        }
+    }
+
+    private int threshold() {
+        int resolved = threshold;
+        if (resolved == UNRESOLVED) {
+            resolved = settings().levelOf(name).ordinal();
+            threshold = resolved;
+        }
+        return resolved;
+    }
+
+    private void emit(Level level, String format, Object[] args) {
+        String message = format;
+        Throwable thrown = null;
+        if (args.length > 0) {
+            StringBuilder text = new StringBuilder(format.length() + 16 * args.length);
+            int from = 0;
+            int used = 0;
+            int at;
+            while (used < args.length && (at = format.indexOf("{}", from)) >= 0) {
+                text.append(format, from, at).append(args[used++]);
+                from = at + 2;
+            }
+            message = text.append(format, from, format.length()).toString();
+            if (used < args.length && args[args.length - 1] instanceof Throwable) {
+                thrown = (Throwable) args[args.length - 1];
+            }
+        }
+        LogEvent event = new LogEvent(System.currentTimeMillis(), level, shortName,
+                Thread.currentThread().getName(), LogContext.getAll(), message, thrown);
+        AsyncLogAppender target = appender != null ? appender : settings().appender;
+        if (target != null) {
+            target.append(event);
+        } else {
+            StringBuilder line = new StringBuilder(128);
+            event.format(line);
+            System.out.print(line);
+        }
+    }
+
+    private static Settings settings() {
+        Settings current = settings;
+        if (current == null) {
+            synchronized (Log.class) {
+                current = settings;
+                if (current == null) {
+                    current = new Settings(ConfigManager.getInstance());
+                    settings = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Levels and appender from the configuration, read once per JVM.
+     */
+    private static final class Settings {
+        private static final String LEVEL_PREFIX = "log.level.";
+
+        private final Level rootLevel;
+        private final Map<String, Level> levels = new HashMap<String, Level>();
+        private final AsyncLogAppender appender;
+
+        Settings(ConfigManager config) {
+            rootLevel = parseLevel("log.level", config.getString("log.level", "INFO"));
+            Properties all = config.toProperties();
+            for (String key : all.stringPropertyNames()) {
+                if (key.startsWith(LEVEL_PREFIX)) {
+                    levels.put(key.substring(LEVEL_PREFIX.length()), parseLevel(key, all.getProperty(key)));
+                }
+            }
+            if (config.getBoolean("log.async", true)) {
+                AsyncLogAppender async = new AsyncLogAppender(config.getInt("log.buffer.size", 8192));
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> async.flush(Duration.ofSeconds(5)), "log-flush"));
+                appender = async;
+            } else {
+                appender = null;
+            }
+        }
+
+        /**
+         * The level of the logger itself, else of its closest package, else log.level.
+         * @param name
+         * @return
+         */
+        Level levelOf(String name) {
+            String scope = name;
+            while (true) {
+                Level level = levels.get(scope);
+                if (level != null) {
+                    return level;
+                }
+                int dot = scope.lastIndexOf('.');
+                if (dot < 0) {
+                    return rootLevel;
+                }
+                scope = scope.substring(0, dot);
+            }
+        }
+
+        private static Level parseLevel(String key, String value) {
+            try {
+                return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Config value of " + key + " is not a valid level: " + value, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.qa.opencart.utils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Key/value pairs attached to every log event of the current thread, such as the running test
+ * and the browser session it drives.<br/>
+ * The map of a thread is replaced by a changed copy on every put or remove and shared read-only by
+ * the events, so a log call never copies it: changes happen once per test, log calls far more often.
+ */
+public final class LogContext {
+    public static final String TEST = "test";
+    public static final String SESSION = "session";
+
+    private static final ThreadLocal<Map<String, String>> context =
+            ThreadLocal.withInitial(Collections::emptyMap);
+
+    private LogContext() {
+    }
+
+    /**
+     * Sets a value for the current thread.
+     * @param key
+     * @param value null removes the key
+     */
+    public static void put(String key, String value) {
+        if (value == null) {
+            remove(key);
+            return;
+        }
+        Map<String, String> current = context.get();
+        if (value.equals(current.get(key))) {
+            return;
+        }
+        Map<String, String> changed = new LinkedHashMap<String, String>(current);
+        changed.put(key, value);
+        context.set(Collections.unmodifiableMap(changed));
+    }
+
+    public static String get(String key) {
+        return context.get().get(key);
+    }
+
+    public static void remove(String key) {
+        Map<String, String> current = context.get();
+        if (!current.containsKey(key)) {
+            return;
+        }
+        Map<String, String> changed = new LinkedHashMap<String, String>(current);
+        changed.remove(key);
+        context.set(changed.isEmpty() ? Collections.<String, String>emptyMap() : Collections.unmodifiableMap(changed));
+    }
+
+    /**
+     * Returns the context of the current thread, an immutable map which later changes do not affect.
+     * @return
+     */
+    public static Map<String, String> getAll() {
+        return context.get();
+    }
+
+    /**
+     * Replaces the context of the current thread, e.g. with one taken by getAll() on another thread.
+     * @param values
+     */
+    public static void setAll(Map<String, String> values) {
+        if (values.isEmpty()) {
+            context.remove();
+        } else {
+            context.set(Collections.unmodifiableMap(new LinkedHashMap<String, String>(values)));
+        }
+    }
+
+    public static void clear() {
+        context.remove();
+    }
+}
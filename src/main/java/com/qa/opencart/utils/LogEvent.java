@@ -0,0 +1,58 @@
+package com.qa.opencart.utils;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * One log call, captured on the logging thread and turned into text by whoever writes it.
+ */
+final class LogEvent {
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS")
+            .withZone(ZoneId.systemDefault());
+
+    private final long timeMillis;
+    private final Log.Level level;
+    private final String logger;
+    private final String thread;
+    private final Map<String, String> context;
+    private final String message;
+    private final Throwable thrown;
+
+    LogEvent(long timeMillis, Log.Level level, String logger, String thread, Map<String, String> context,
+             String message, Throwable thrown) {
+        this.timeMillis = timeMillis;
+        this.level = level;
+        this.logger = logger;
+        this.thread = thread;
+        this.context = context;
+        this.message = message;
+        this.thrown = thrown;
+    }
+
+    /**
+     * Appends the event as one line (plus the stack trace of a Throwable):<br/>
+     * 14:03:27.412 INFO  [TestNG-methods-2] DriverFactory {test=LoginPageTest.loginTest, session=5f2c} - chrome driver started in 812 ms
+     * @param text
+     */
+    void format(StringBuilder text) {
+        TIME.formatTo(Instant.ofEpochMilli(timeMillis), text);
+        text.append(' ').append(level.name());
+        for (int i = level.name().length(); i < 5; i++) {
+            text.append(' ');
+        }
+        text.append(" [").append(thread).append("] ").append(logger);
+        if (!context.isEmpty()) {
+            text.append(' ').append(context);
+        }
+        text.append(" - ").append(message).append(System.lineSeparator());
+        if (thrown != null) {
+            StringWriter trace = new StringWriter();
+            thrown.printStackTrace(new PrintWriter(trace));
+            text.append(trace);
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.qa.opencart.utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits for several conditions in one polling loop: until any of them holds, until all of them
+ * hold in the same poll, or until none of them holds.<br/>
+ * "Wait for the success alert or the error banner" returns as soon as either shows up and says
+ * which one did, instead of two waits one after the other where the negative path always sits
+ * out a full timeout.<br/>
+ * Element conditions (whenPresent, whenVisible, whenInvisible) are checked for all their locators
+ * with one executeScript call per poll; locators without a JavaScript equivalent, and drivers
+ * without JavaScript, use the matching ExpectedConditions instead. A poll stops at the first
+ * condition which decides it, and the other ExpectedConditions are tried cheapest first by their
+ * average cost so far. When several conditions hold at once, the element conditions win first.<br/>
+ * Polling backs off like WaitEngine.newWait. NotFoundException and StaleElementReferenceException
+ * count as "does not hold"; other exceptions end the wait. The evaluations and time spent per
+ * condition are in the Result and recorded in CommandMetrics under the condition category.<br/>
+ * One instance belongs to one thread; until() can be called again and starts fresh.
+ * <pre>
+ * MultiConditionWait.Result result = elementUtils.waitForAnyOf()
+ *         .whenVisible("success", successAlert)
+ *         .whenVisible("error", errorBanner)
+ *         .until(Duration.ofSeconds(10));
+ * Assert.assertEquals(result.getWinner(), "success");
+ * </pre>
+ */
+public final class MultiConditionWait {
+    private static final Log log = Log.get(MultiConditionWait.class);
+
+    public enum Mode {
+        ANY_OF, ALL_OF, NONE_OF
+    }
+
+    private final WebDriver driver;
+    private final JavaScriptUtil jsUtil;
+    private final Mode mode;
+    private final Duration initialPolling;
+    private final Duration maxPolling;
+    private final List<Condition> conditions = new ArrayList<Condition>();
+
+    MultiConditionWait(WebDriver driver, Mode mode, Duration initialPolling, Duration maxPolling) {
+        this.driver = driver;
+        this.jsUtil = new JavaScriptUtil(driver);
+        this.mode = mode;
+        this.initialPolling = initialPolling;
+        this.maxPolling = maxPolling;
+    }
+
+    /**
+     * Adds any ExpectedCondition; it holds when it returns neither null nor false.
+     * @param name reported as winner and used as metrics key, unique within the wait
+     * @param condition
+     * @return
+     */
+    public MultiConditionWait when(String name, ExpectedCondition<?> condition) {
+        return add(new Condition(name, condition, null, null));
+    }
+
+    /**
+     * Holds when an element matches the locator; its value is that element.
+     * @param name
+     * @param locator
+     * @return
+     */
+    public MultiConditionWait whenPresent(String name, By locator) {
+        return add(new Condition(name, ExpectedConditions.presenceOfElementLocated(locator), locator, "present"));
+    }
+
+    /**
+     * Holds when an element matching the locator is displayed; its value is that element.
+     * @param name
+     * @param locator
+     * @return
+     */
+    public MultiConditionWait whenVisible(String name, By locator) {
+        return add(new Condition(name, ExpectedConditions.visibilityOfElementLocated(locator), locator, "visible"));
+    }
+
+    /**
+     * Holds when no element matching the locator is displayed, including when none is present.
+     * @param name
+     * @param locator
+     * @return
+     */
+    public MultiConditionWait whenInvisible(String name, By locator) {
+        return add(new Condition(name, ExpectedConditions.invisibilityOfElementLocated(locator), locator, "invisible"));
+    }
+
+    private MultiConditionWait add(Condition condition) {
+        for (Condition existing : conditions) {
+            if (existing.name.equals(condition.name)) {
+                throw new IllegalArgumentException("Condition " + condition.name + " is declared twice");
+            }
+        }
+        conditions.add(condition);
+        return this;
+    }
+
+    /**
+     * Polls until the conditions are met as the mode says.
+     * @param timeOut
+     * @return which condition won and what each condition cost
+     * @throws TimeoutException when the timeout elapsed first
+     */
+    public Result until(Duration timeOut) {
+        if (conditions.isEmpty()) {
+            throw new IllegalStateException("No conditions to wait for");
+        }
+        List<Condition> inBrowser = new ArrayList<Condition>();
+        List<List<String>> queries = new ArrayList<List<String>>();
+        List<Condition> inJava = new ArrayList<Condition>();
+        for (Condition condition : conditions) {
+            condition.reset();
+            String[] query = condition.locator == null || !jsUtil.isAvailable() ? null : JavaScriptUtil.toQuery(condition.locator);
+            if (query == null) {
+                inJava.add(condition);
+            } else {
+                inBrowser.add(condition);
+                queries.add(Arrays.asList(query[0], query[1], condition.state));
+            }
+        }
+
+        // a poll stops at the first condition with this outcome: it holds for any-of and none-of, it fails for all-of
+        boolean decidingOutcome = mode != Mode.ALL_OF;
+        WaitEngine.BackoffSleeper sleeper = new WaitEngine.BackoffSleeper(initialPolling, maxPolling);
+        long start = System.nanoTime();
+        long deadline = start + timeOut.toNanos();
+        int polls = 0;
+        while (true) {
+            polls++;
+            Map<String, Object> values = new LinkedHashMap<String, Object>();
+            Condition decider = null;
+
+            if (!inBrowser.isEmpty()) {
+                long batchStart = System.nanoTime();
+                List<?> results = jsUtil.checkElements(queries);
+                long share = (System.nanoTime() - batchStart) / inBrowser.size();
+                for (int i = 0; i < inBrowser.size() && decider == null; i++) {
+                    Condition condition = inBrowser.get(i);
+                    Object value = results == null ? null : results.get(i);
+                    if (value == null) {
+                        value = condition.evaluate(driver);
+                    } else {
+                        condition.recordInBrowser(share);
+                    }
+                    values.put(condition.name, value);
+                    if (holds(value) == decidingOutcome) {
+                        decider = condition;
+                    }
+                }
+            }
+            if (decider == null) {
+                inJava.sort(Comparator.comparingLong(Condition::averageNanos));
+                for (Condition condition : inJava) {
+                    Object value = condition.evaluate(driver);
+                    values.put(condition.name, value);
+                    if (holds(value) == decidingOutcome) {
+                        decider = condition;
+                        break;
+                    }
+                }
+            }
+
+            boolean done = mode == Mode.ANY_OF ? decider != null : decider == null;
+            long elapsed = System.nanoTime() - start;
+            if (done) {
+                Result result = new Result(mode, mode == Mode.ANY_OF ? decider.name : null, values, polls, elapsed, costs());
+                if (log.isDebugEnabled()) {
+                    log.debug("{} after {} polls in {} ms: {}", describe(), polls,
+                            TimeUnit.NANOSECONDS.toMillis(elapsed), result.getCosts());
+                }
+                return result;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                CommandMetrics.increment(CommandMetrics.WAIT_TIMEOUTS);
+                String reason = mode == Mode.ANY_OF ? "none held"
+                        : mode == Mode.ALL_OF ? decider.name + " did not hold" : decider.name + " still held";
+                throw new TimeoutException(describe() + " not met within " + timeOut.toMillis() + " ms (" + polls
+                        + " polls, " + reason + "); costs: " + costs(), lastIgnored());
+            }
+            try {
+                sleeper.sleep(null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WebDriverException(e);
+            }
+        }
+    }
+
+    private static boolean holds(Object value) {
+        return value != null && !Boolean.FALSE.equals(value);
+    }
+
+    private String describe() {
+        List<String> names = new ArrayList<String>();
+        for (Condition condition : conditions) {
+            names.add(condition.name);
+        }
+        return mode.name().toLowerCase(Locale.ROOT).replace('_', ' ') + " " + names;
+    }
+
+    private List<ConditionCost> costs() {
+        List<ConditionCost> costs = new ArrayList<ConditionCost>();
+        for (Condition condition : conditions) {
+            costs.add(new ConditionCost(condition.name, condition.evaluations, condition.browserEvaluations,
+                    condition.totalNanos));
+        }
+        return Collections.unmodifiableList(costs);
+    }
+
+    private RuntimeException lastIgnored() {
+        for (Condition condition : conditions) {
+            if (condition.lastIgnored != null) {
+                return condition.lastIgnored;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * One declared condition with its cost during the current until().
+     */
+    private static final class Condition {
+        private final String name;
+        private final ExpectedCondition<?> expected;
+        private final By locator;
+        private final String state;
+
+        private int evaluations;
+        private int browserEvaluations;
+        private long totalNanos;
+        private RuntimeException lastIgnored;
+
+        Condition(String name, ExpectedCondition<?> expected, By locator, String state) {
+            this.name = name;
+            this.expected = expected;
+            this.locator = locator;
+            this.state = state;
+        }
+
+        void reset() {
+            evaluations = 0;
+            browserEvaluations = 0;
+            totalNanos = 0;
+            lastIgnored = null;
+        }
+
+        Object evaluate(WebDriver driver) {
+            long start = System.nanoTime();
+            try {
+                return expected.apply(driver);
+            } catch (NotFoundException | StaleElementReferenceException e) {
+                lastIgnored = e;
+                return null;
+            } finally {
+                record(System.nanoTime() - start);
+            }
+        }
+
+        void recordInBrowser(long nanos) {
+            browserEvaluations++;
+            record(nanos);
+        }
+
+        private void record(long nanos) {
+            evaluations++;
+            totalNanos += nanos;
+            CommandMetrics.record(CommandMetrics.CONDITION, name, nanos);
+        }
+
+        long averageNanos() {
+            return evaluations == 0 ? 0 : totalNanos / evaluations;
+        }
+    }
+
+    /**
+     * How often a condition was evaluated during one until() and how long that took.
+     * Evaluations in the browser share the time of their executeScript call equally.
+     */
+    public static final class ConditionCost {
+        private final String name;
+        private final int evaluations;
+        private final int browserEvaluations;
+        private final long totalNanos;
+
+        ConditionCost(String name, int evaluations, int browserEvaluations, long totalNanos) {
+            this.name = name;
+            this.evaluations = evaluations;
+            this.browserEvaluations = browserEvaluations;
+            this.totalNanos = totalNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return 0 when the outcome of every poll was decided before the condition's turn
+         */
+        public int getEvaluations() {
+            return evaluations;
+        }
+
+        /**
+         * @return how many of the evaluations ran in the browser script
+         */
+        public int getBrowserEvaluations() {
+            return browserEvaluations;
+        }
+
+        public Duration getTotal() {
+            return Duration.ofNanos(totalNanos);
+        }
+
+        @Override
+        public String toString() {
+            return name + " " + evaluations + "x " + TimeUnit.NANOSECONDS.toMillis(totalNanos) + " ms"
+                    + (browserEvaluations > 0 ? " (" + browserEvaluations + " in browser)" : "");
+        }
+    }
+
+    /**
+     * Outcome of a successful wait.
+     */
+    public static final class Result {
+        private final Mode mode;
+        private final String winner;
+        private final Map<String, Object> values;
+        private final int polls;
+        private final long elapsedNanos;
+        private final List<ConditionCost> costs;
+
+        Result(Mode mode, String winner, Map<String, Object> values, int polls, long elapsedNanos,
+               List<ConditionCost> costs) {
+            this.mode = mode;
+            this.winner = winner;
+            this.values = Collections.unmodifiableMap(values);
+            this.polls = polls;
+            this.elapsedNanos = elapsedNanos;
+            this.costs = costs;
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        /**
+         * @return for any-of the name of the condition which held; null for all-of and none-of
+         */
+        public String getWinner() {
+            return winner;
+        }
+
+        /**
+         * Returns what a condition returned in the last poll, e.g. the WebElement of whenVisible
+         * or the Alert of ExpectedConditions.alertIsPresent().
+         * @param name
+         * @return null when it did not hold or was not evaluated in the last poll
+         */
+        @SuppressWarnings("unchecked")
+        public <T> T getValue(String name) {
+            Object value = values.get(name);
+            return holds(value) ? (T) value : null;
+        }
+
+        public int getPolls() {
+            return polls;
+        }
+
+        public Duration getElapsed() {
+            return Duration.ofNanos(elapsedNanos);
+        }
+
+        /**
+         * @return the cost of every condition, in the order they were declared
+         */
+        public List<ConditionCost> getCosts() {
+            return costs;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.qa.opencart.utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsElement;
+import org.openqa.selenium.interactions.Locatable;
+import org.openqa.selenium.support.FindAll;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.FindBys;
+import org.openqa.selenium.support.pagefactory.Annotations;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Turns the &#64;FindBy (&#64;FindBys, &#64;FindAll) fields of a page object into lazy proxies.<br/>
+ * A WebElement proxy finds its element on first use and reads it through the ElementCache of the
+ * driver of the calling thread, so the handle is memoized per driver while the page stays loaded
+ * and one page instance can be shared by parallel tests. A stale handle is dropped and the call
+ * retried once. List&lt;WebElement&gt; proxies look their elements up again on every use.<br/>
+ * With page.preload (default true) the first cache miss resolves all declared elements of the
+ * page in one JavaScript call instead of one findElement per element. That happens once per
+ * loaded page: an element the batch did not find, or a miss after it, costs one findElement.
+ */
+public final class PageElementFactory {
+
+    private PageElementFactory() {
+    }
+
+    /**
+     * Replaces every annotated WebElement and List&lt;WebElement&gt; field of the page with a lazy proxy.
+     * @param page
+     * @param driverSupplier gives the driver of the calling thread
+     * @return the locators of the single element fields, in declaration order
+     */
+    public static List<By> initElements(Object page, Supplier<WebDriver> driverSupplier) {
+        List<Field> elementFields = new ArrayList<Field>();
+        List<Field> listFields = new ArrayList<Field>();
+        List<By> locators = new ArrayList<By>();
+        for (Class<?> type = page.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (!isAnnotated(field)) {
+                    continue;
+                }
+                if (field.getType() == WebElement.class) {
+                    elementFields.add(field);
+                    locators.add(new Annotations(field).buildBy());
+                } else if (isElementList(field)) {
+                    listFields.add(field);
+                } else {
+                    throw new IllegalArgumentException("Field " + field + " must be a WebElement or List<WebElement>");
+                }
+            }
+        }
+        List<By> pageLocators = Collections.unmodifiableList(locators);
+        boolean preload = ConfigManager.getInstance().getBoolean("page.preload", true);
+
+        for (int i = 0; i < elementFields.size(); i++) {
+            ElementHandler handler = new ElementHandler(pageLocators.get(i), driverSupplier,
+                    preload ? pageLocators : Collections.<By>emptyList());
+            setField(page, elementFields.get(i), Proxy.newProxyInstance(PageElementFactory.class.getClassLoader(),
+                    new Class<?>[] {WebElement.class, WrapsElement.class, Locatable.class}, handler));
+        }
+        for (Field field : listFields) {
+            ListHandler handler = new ListHandler(new Annotations(field).buildBy(), driverSupplier);
+            setField(page, field, Proxy.newProxyInstance(PageElementFactory.class.getClassLoader(),
+                    new Class<?>[] {List.class}, handler));
+        }
+        return pageLocators;
+    }
+
+    /**
+     * Resolves the first match of every locator in one JavaScript call and puts the found
+     * handles into the ElementCache of the driver.
+     * @param driver
+     * @param locators
+     * @return the number of elements found, or -1 when the batch lookup is not possible
+     */
+    public static int preload(WebDriver driver, List<By> locators) {
+        if (locators.isEmpty()) {
+            return 0;
+        }
+        List<WebElement> elements = new JavaScriptUtil(driver).findFirstElements(locators);
+        if (elements == null) {
+            return -1;
+        }
+        ElementCache cache = ElementCache.forDriver(driver);
+        int found = 0;
+        for (int i = 0; i < elements.size(); i++) {
+            if (elements.get(i) != null) {
+                cache.put(locators.get(i), elements.get(i));
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the locator behind an element proxy created by initElements.
+     * @param element
+     * @return
+     */
+    public static By getLocator(WebElement element) {
+        if (Proxy.isProxyClass(element.getClass())
+                && Proxy.getInvocationHandler(element) instanceof ElementHandler) {
+            return ((ElementHandler) Proxy.getInvocationHandler(element)).locator;
+        }
+        throw new IllegalArgumentException(element + " is not a page element proxy");
+    }
+
+    private static boolean isAnnotated(Field field) {
+        return field.isAnnotationPresent(FindBy.class) || field.isAnnotationPresent(FindBys.class)
+                || field.isAnnotationPresent(FindAll.class);
+    }
+
+    private static boolean isElementList(Field field) {
+        return field.getType() == List.class && field.getGenericType() instanceof ParameterizedType
+                && ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0] == WebElement.class;
+    }
+
+    private static void setField(Object page, Field field, Object value) {
+        try {
+            field.setAccessible(true);
+            field.set(page, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Could not initialise " + field, e);
+        }
+    }
+
+    private static Object call(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Backs a single WebElement field.
+     */
+    private static class ElementHandler implements InvocationHandler {
+        private final By locator;
+        private final Supplier<WebDriver> driverSupplier;
+        private final List<By> preloadLocators;
+
+        ElementHandler(By locator, Supplier<WebDriver> driverSupplier, List<By> preloadLocators) {
+            this.locator = locator;
+            this.driverSupplier = driverSupplier;
+            this.preloadLocators = preloadLocators;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "toString":
+                    return "Lazy element for " + locator;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    break;
+            }
+            ElementCache cache = ElementCache.forDriver(driverSupplier.get());
+            WebElement element = resolve(cache);
+            if ("getWrappedElement".equals(method.getName())) {
+                return element;
+            }
+            try {
+                return call(method, element, args);
+            } catch (StaleElementReferenceException e) {
+                cache.onStale(locator);
+                return call(method, resolve(cache), args);
+            }
+        }
+
+        private WebElement resolve(ElementCache cache) {
+            if (!preloadLocators.isEmpty() && !cache.contains(locator) && cache.markPreloaded(preloadLocators)) {
+                preload(driverSupplier.get(), preloadLocators);
+            }
+            return cache.get(driverSupplier.get(), locator);
+        }
+    }
+
+    /**
+     * Backs a List&lt;WebElement&gt; field.
+     */
+    private static class ListHandler implements InvocationHandler {
+        private final By locator;
+        private final Supplier<WebDriver> driverSupplier;
+
+        ListHandler(By locator, Supplier<WebDriver> driverSupplier) {
+            this.locator = locator;
+            this.driverSupplier = driverSupplier;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("toString".equals(method.getName()) && args == null) {
+                return "Lazy element list for " + locator;
+            }
+            return call(method, driverSupplier.get().findElements(locator), args);
+        }
+    }
+}
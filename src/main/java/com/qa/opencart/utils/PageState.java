@@ -0,0 +1,227 @@
+package com.qa.opencart.utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of a page: title, url, document.readyState and, for a declared list of
+ * locators, the number of matches, whether the first match is displayed and its text.<br/>
+ * The snapshot is taken with one executeScript call, so any number of assertions on it costs
+ * no further round trips. Locators without a JavaScript equivalent, and drivers without
+ * JavaScript, are read with regular WebDriver calls instead.
+ * <pre>
+ * PageState state = PageState.query().element(emailField).elementWithText(heading).capture(driver);
+ * Assert.assertEquals(state.getTitle(), Constants.LOGIN_PAGE_TITLE);
+ * Assert.assertTrue(state.isVisible(emailField));
+ * </pre>
+ */
+public final class PageState {
+    private final String title;
+    private final String url;
+    private final String readyState;
+    private final Map<By, ElementState> elements;
+
+    private PageState(String title, String url, String readyState, Map<By, ElementState> elements) {
+        this.title = title;
+        this.url = url;
+        this.readyState = readyState;
+        this.elements = Collections.unmodifiableMap(elements);
+    }
+
+    /**
+     * Starts declaring what the snapshot contains. Title, url and readyState are always included.
+     * @return
+     */
+    public static Query query() {
+        return new Query();
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return loading, interactive or complete; null when the driver cannot run JavaScript
+     */
+    public String getReadyState() {
+        return readyState;
+    }
+
+    /**
+     * @return true when document.readyState was complete
+     */
+    public boolean isLoaded() {
+        return "complete".equals(readyState);
+    }
+
+    public boolean isPresent(By locator) {
+        return get(locator).count > 0;
+    }
+
+    /**
+     * @param locator
+     * @return true when the first match was displayed
+     */
+    public boolean isVisible(By locator) {
+        return get(locator).visible;
+    }
+
+    public int getCount(By locator) {
+        return get(locator).count;
+    }
+
+    /**
+     * Returns the text of the first match as WebElement.getText() would: "" when it is not displayed.
+     * @param locator a locator declared with elementWithText
+     * @return the text, or null when nothing matched
+     */
+    public String getText(By locator) {
+        ElementState state = get(locator);
+        if (!state.withText) {
+            throw new IllegalArgumentException(locator + " was declared without its text, use elementWithText");
+        }
+        return state.text;
+    }
+
+    /**
+     * @return the declared locators in declaration order
+     */
+    public Set<By> getLocators() {
+        return elements.keySet();
+    }
+
+    private ElementState get(By locator) {
+        ElementState state = elements.get(locator);
+        if (state == null) {
+            throw new IllegalArgumentException(locator + " is not part of the page state snapshot");
+        }
+        return state;
+    }
+
+    @Override
+    public String toString() {
+        return "PageState[title=" + title + ", url=" + url + ", readyState=" + readyState + ", elements=" + elements + "]";
+    }
+
+    private static final class ElementState {
+        final int count;
+        final boolean visible;
+        final boolean withText;
+        final String text;
+
+        ElementState(int count, boolean visible, boolean withText, String text) {
+            this.count = count;
+            this.visible = visible;
+            this.withText = withText;
+            this.text = text;
+        }
+
+        @Override
+        public String toString() {
+            return "{count=" + count + ", visible=" + visible + (withText ? ", text=" + text : "") + "}";
+        }
+    }
+
+    /**
+     * The declared content of a snapshot. A query can be kept in a constant and captured repeatedly.
+     */
+    public static final class Query {
+        private final Set<By> locators = new LinkedHashSet<By>();
+        private final Set<By> textLocators = new LinkedHashSet<By>();
+
+        private Query() {
+        }
+
+        /**
+         * Adds presence, match count and visibility of the locators.
+         * @param locators
+         * @return
+         */
+        public Query element(By... locators) {
+            this.locators.addAll(Arrays.asList(locators));
+            return this;
+        }
+
+        /**
+         * Adds presence, match count, visibility and text of the locators.
+         * @param locators
+         * @return
+         */
+        public Query elementWithText(By... locators) {
+            element(locators);
+            textLocators.addAll(Arrays.asList(locators));
+            return this;
+        }
+
+        /**
+         * Takes the snapshot.
+         * @param driver
+         * @return
+         */
+        public PageState capture(WebDriver driver) {
+            List<By> declared = new ArrayList<By>(locators);
+            Map<?, ?> scripted = new JavaScriptUtil(driver).getPageState(declared, textLocators);
+            Map<By, ElementState> elements = new LinkedHashMap<By, ElementState>();
+            if (scripted == null) {
+                for (By locator : declared) {
+                    elements.put(locator, read(driver, locator));
+                }
+                return new PageState(driver.getTitle(), driver.getCurrentUrl(), readReadyState(driver), elements);
+            }
+            List<?> states = (List<?>) scripted.get("elements");
+            for (int i = 0; i < declared.size(); i++) {
+                By locator = declared.get(i);
+                Object state = states.get(i);
+                elements.put(locator, state instanceof Map ? toElementState(locator, (Map<?, ?>) state) : read(driver, locator));
+            }
+            return new PageState(asString(scripted.get("title")), asString(scripted.get("url")),
+                    asString(scripted.get("readyState")), elements);
+        }
+
+        private ElementState toElementState(By locator, Map<?, ?> state) {
+            return new ElementState(((Number) state.get("count")).intValue(), Boolean.TRUE.equals(state.get("visible")),
+                    textLocators.contains(locator), asString(state.get("text")));
+        }
+
+        private ElementState read(WebDriver driver, By locator) {
+            List<WebElement> found = driver.findElements(locator);
+            if (found.isEmpty()) {
+                return new ElementState(0, false, textLocators.contains(locator), null);
+            }
+            WebElement first = found.get(0);
+            return new ElementState(found.size(), first.isDisplayed(), textLocators.contains(locator),
+                    textLocators.contains(locator) ? first.getText() : null);
+        }
+
+        private static String readReadyState(WebDriver driver) {
+            if (!(driver instanceof JavascriptExecutor)) {
+                return null;
+            }
+            try {
+                return asString(((JavascriptExecutor) driver).executeScript("return document.readyState;"));
+            } catch (WebDriverException e) {
+                return null;
+            }
+        }
+
+        private static String asString(Object value) {
+            return value == null ? null : String.valueOf(value);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.qa.opencart.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Durations of earlier test runs, per test class and per test method, in milliseconds.<br/>
+ * Stored as a properties file (class.&lt;name&gt; and method.&lt;class&gt;.&lt;method&gt;). New runs are
+ * blended into the stored values with an exponential moving average, so one slow run does not
+ * dominate the schedule. Writes are guarded by a file lock because parallel forks finish together.
+ */
+public class TestDurationHistory {
+    private static final Log log = Log.get(TestDurationHistory.class);
+    private static final String CLASS_PREFIX = "class.";
+    private static final String METHOD_PREFIX = "method.";
+    private static final double SMOOTHING = 0.5;
+
+    private final Path file;
+    private final Map<String, Long> classMillis;
+    private final Map<String, Long> methodMillis;
+
+    private TestDurationHistory(Path file, Map<String, Long> classMillis, Map<String, Long> methodMillis) {
+        this.file = file;
+        this.classMillis = Collections.unmodifiableMap(classMillis);
+        this.methodMillis = Collections.unmodifiableMap(methodMillis);
+    }
+
+    /**
+     * Loads the history; a missing or unreadable file gives an empty history.
+     * @param file
+     * @return
+     */
+    public static TestDurationHistory load(Path file) {
+        Map<String, Long> classes = new HashMap<String, Long>();
+        Map<String, Long> methods = new HashMap<String, Long>();
+        try {
+            split(read(file), classes, methods);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Test duration history {} is not usable, scheduling without it: {}", file, e.getMessage());
+        }
+        return new TestDurationHistory(file, classes, methods);
+    }
+
+    public boolean isEmpty() {
+        return classMillis.isEmpty();
+    }
+
+    /**
+     * @param className
+     * @return the expected duration of the class, or -1 when it never ran
+     */
+    public long getClassMillis(String className) {
+        Long millis = classMillis.get(className);
+        return millis == null ? -1 : millis;
+    }
+
+    /**
+     * @param className
+     * @param methodName
+     * @return the expected duration of the method, or -1 when it never ran
+     */
+    public long getMethodMillis(String className, String methodName) {
+        Long millis = methodMillis.get(className + '.' + methodName);
+        return millis == null ? -1 : millis;
+    }
+
+    public Map<String, Long> getClassMillis() {
+        return classMillis;
+    }
+
+    /**
+     * Blends the durations of a finished run into the history file.<br/>
+     * The file is re-read under the lock, so results written by other forks meanwhile are kept.
+     * @param runClassMillis class name to duration of this run
+     * @param runMethodMillis class.method to duration of this run
+     * @throws IOException
+     */
+    public void record(Map<String, Long> runClassMillis, Map<String, Long> runMethodMillis) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        try (RandomAccessFile lockFile = new RandomAccessFile(dir.resolve(file.getFileName() + ".lock").toFile(), "rw");
+             FileChannel channel = lockFile.getChannel();
+             FileLock lock = channel.lock()) {
+            Properties stored = read(file);
+            blend(stored, CLASS_PREFIX, runClassMillis);
+            blend(stored, METHOD_PREFIX, runMethodMillis);
+            Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                stored.store(out, "Test durations in ms, used to schedule the next runs");
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void blend(Properties stored, String prefix, Map<String, Long> run) {
+        for (Map.Entry<String, Long> entry : run.entrySet()) {
+            String key = prefix + entry.getKey();
+            String old = stored.getProperty(key);
+            long millis = old == null
+                    ? entry.getValue()
+                    : Math.round(SMOOTHING * Long.parseLong(old) + (1 - SMOOTHING) * entry.getValue());
+            stored.setProperty(key, String.valueOf(millis));
+        }
+    }
+
+    private static Properties read(Path file) throws IOException {
+        Properties stored = new Properties();
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                stored.load(in);
+            }
+        }
+        return stored;
+    }
+
+    private static void split(Properties stored, Map<String, Long> classes, Map<String, Long> methods) {
+        for (String key : stored.stringPropertyNames()) {
+            long millis = Long.parseLong(stored.getProperty(key).trim());
+            if (key.startsWith(CLASS_PREFIX)) {
+                classes.put(key.substring(CLASS_PREFIX.length()), millis);
+            } else if (key.startsWith(METHOD_PREFIX)) {
+                methods.put(key.substring(METHOD_PREFIX.length()), millis);
+            }
+        }
+    }
+}
@@ -0,0 +1,862 @@
+package com.qa.opencart.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Finds the test classes affected by a change, from the compiled classes alone.<br/>
+ * Every class file of the scanned directories is read down to its instructions: which methods
+ * and fields of which classes each method uses, which constants it loads and which source lines
+ * it was compiled from. A changed line inside a method marks that method as changed; the change
+ * then travels to every method calling it, to their callers, and so on, until it reaches the test
+ * classes. A changed compile-time constant, e.g. Constants.LOGIN_PAGE_TITLE, reaches the methods
+ * which load its value, since javac copies such values into the classes using them.<br/>
+ * Whatever cannot be pinned to a method or constant (a changed import, annotation or method
+ * signature) counts as a change of the whole class. Changes to non-Java files under src/main or
+ * src/test, to pom.xml, to classes missing from the index and to the full suite classes (e.g.
+ * DriverFactory, BaseTest) select the full suite.
+ */
+public class TestImpactIndex {
+    private static final Pattern FIELD_DECLARATION = Pattern.compile("(\\w+)\\s*(=|;)");
+    private static final Pattern LAMBDA = Pattern.compile("^lambda\\$(.+)\\$\\d+$");
+    private static final String CLASS_INIT = "<clinit>";
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_STATIC = 0x0008;
+
+    private final Map<String, ClassInfo> classes;
+    private final Map<String, Set<String>> relatedTypes = new HashMap<String, Set<String>>();
+
+    private TestImpactIndex(Map<String, ClassInfo> classes) {
+        this.classes = classes;
+    }
+
+    /**
+     * Reads every class file below the directories, e.g. target/classes and target/test-classes.
+     * @param classDirs directories which do not exist are skipped
+     * @return
+     * @throws IOException
+     */
+    public static TestImpactIndex scan(List<Path> classDirs) throws IOException {
+        Map<String, ClassInfo> classes = new HashMap<String, ClassInfo>();
+        for (Path dir : classDirs) {
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(dir)) {
+                files = walk.filter(p -> p.toString().endsWith(".class")).collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                ClassInfo info = ClassFileReader.read(Files.readAllBytes(file));
+                classes.put(info.name, info);
+            }
+        }
+        return new TestImpactIndex(classes);
+    }
+
+    public int size() {
+        return classes.size();
+    }
+
+    /**
+     * Returns the indexed classes the class refers to, directly or through other indexed classes.
+     * @param className e.g. com.qa.opencart.tests.LoginPageTest
+     * @return
+     */
+    public Set<String> getReferencedClasses(String className) {
+        Set<String> seen = new LinkedHashSet<String>();
+        Deque<String> queue = new ArrayDeque<String>(Collections.singleton(className));
+        while (!queue.isEmpty()) {
+            ClassInfo info = classes.get(queue.poll());
+            if (info == null) {
+                continue;
+            }
+            for (String ref : info.classRefs) {
+                if (classes.containsKey(ref) && seen.add(ref)) {
+                    queue.add(ref);
+                }
+            }
+        }
+        seen.remove(className);
+        return seen;
+    }
+
+    /**
+     * Outcome of a selection: either the affected tests or the full suite with the reason.
+     */
+    public static final class Selection {
+        private final Set<String> tests;
+        private final String reason;
+
+        private Selection(Set<String> tests, String reason) {
+            this.tests = tests;
+            this.reason = reason;
+        }
+
+        public boolean isFullSuite() {
+            return tests == null;
+        }
+
+        /**
+         * @return the affected test classes, null for the full suite
+         */
+        public Set<String> getTests() {
+            return tests;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+
+    /**
+     * Selects the test classes affected by the changes.
+     * @param testClasses the candidate test classes, e.g. all classes of the suite
+     * @param changes e.g. GitChanges.read("origin/main")
+     * @param fullSuiteClasses classes (nested classes included) whose change selects the full suite
+     * @return
+     */
+    public Selection select(Collection<String> testClasses, List<GitChanges.FileChange> changes,
+                            Set<String> fullSuiteClasses) {
+        Change change = new Change();
+        for (GitChanges.FileChange file : changes) {
+            String path = file.getPath();
+            String source = null;
+            for (String root : new String[] {"src/main/java/", "src/test/java/"}) {
+                if (path.startsWith(root) && path.endsWith(".java")) {
+                    source = path.substring(root.length());
+                }
+            }
+            if (source == null) {
+                if (path.startsWith("src/main/") || path.startsWith("src/test/") || path.equals("pom.xml")) {
+                    return new Selection(null, path + (file.isDeleted() ? " deleted" : " changed"));
+                }
+                continue;
+            }
+            List<ClassInfo> compiled = classesOf(source);
+            if (compiled.isEmpty()) {
+                return new Selection(null, path + " is not in the compiled classes");
+            }
+            for (ClassInfo info : compiled) {
+                if (fullSuiteClasses.contains(info.name) || fullSuiteClasses.contains(info.name.split("\\$")[0])) {
+                    return new Selection(null, info.name + " changed");
+                }
+                if (!info.name.contains("$") && !testClasses.contains(info.name) && !isReferenced(info.name)) {
+                    return new Selection(null, info.name + " changed and is only loaded by name, e.g. from testng.xml");
+                }
+            }
+            addChangedLines(file, compiled, change);
+        }
+        if (change.isEmpty()) {
+            return new Selection(Collections.<String>emptySet(), "no Java code changed");
+        }
+        Set<MethodInfo> affected = propagate(change);
+
+        Set<String> selected = new LinkedHashSet<String>();
+        for (String test : testClasses) {
+            if (!classes.containsKey(test)) {
+                selected.add(test);
+                continue;
+            }
+            for (String type : supertypes(test)) {
+                ClassInfo info = classes.get(type);
+                if (info == null) {
+                    continue;
+                }
+                boolean hit = change.wholeClasses.contains(type);
+                for (MethodInfo method : info.methods) {
+                    hit |= affected.contains(method);
+                }
+                if (hit) {
+                    selected.add(test);
+                    break;
+                }
+            }
+        }
+        return new Selection(selected, change.describe());
+    }
+
+    private boolean isReferenced(String className) {
+        for (ClassInfo info : classes.values()) {
+            if (!info.name.equals(className) && !info.name.startsWith(className + "$") && info.classRefs.contains(className)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<ClassInfo> classesOf(String sourcePath) {
+        int slash = sourcePath.lastIndexOf('/');
+        String pkg = slash < 0 ? "" : sourcePath.substring(0, slash).replace('/', '.');
+        String fileName = sourcePath.substring(slash + 1);
+        List<ClassInfo> result = new ArrayList<ClassInfo>();
+        for (ClassInfo info : classes.values()) {
+            if (fileName.equals(info.sourceFile) && pkg.equals(info.getPackage())) {
+                result.add(info);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Turns the changed lines of a source file into changed methods, fields and constants.
+     */
+    private void addChangedLines(GitChanges.FileChange file, List<ClassInfo> compiled, Change change) {
+        if (file.isWholeFile()) {
+            for (ClassInfo info : compiled) {
+                change.wholeClasses.add(info.name);
+            }
+            return;
+        }
+        for (GitChanges.Hunk hunk : file.getHunks()) {
+            boolean codeAdded = false;
+            for (int i = 0; i < hunk.getAdded().size(); i++) {
+                String text = hunk.getAdded().get(i);
+                if (!isCode(text)) {
+                    continue;
+                }
+                codeAdded = true;
+                addChangedLine(hunk.getNewStart() + i, text, false, compiled, change);
+            }
+            if (!codeAdded) {
+                for (String text : hunk.getRemoved()) {
+                    if (isCode(text)) {
+                        addChangedLine(hunk.getNewStart(), text, hunk.getNewCount() == 0, compiled, change);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private void addChangedLine(int line, String text, boolean deletion, List<ClassInfo> compiled, Change change) {
+        MethodInfo narrowest = null;
+        ClassInfo owner = null;
+        for (ClassInfo info : compiled) {
+            for (MethodInfo method : info.methods) {
+                boolean inside = deletion
+                        ? method.firstLine <= line && line < method.lastLine
+                        : method.firstLine <= line && line <= method.lastLine;
+                if (method.firstLine > 0 && inside
+                        && (narrowest == null || method.lastLine - method.firstLine < narrowest.lastLine - narrowest.firstLine)) {
+                    narrowest = method;
+                    owner = info;
+                }
+            }
+        }
+        if (narrowest != null) {
+            if (CLASS_INIT.equals(narrowest.name) || overridesLibraryMethod(owner, narrowest)) {
+                change.wholeClasses.add(owner.name);
+            } else {
+                change.methods.add(narrowest);
+            }
+            return;
+        }
+        Matcher declaration = FIELD_DECLARATION.matcher(text);
+        if (!deletion && declaration.find()) {
+            String fieldName = declaration.group(1);
+            for (ClassInfo info : compiled) {
+                if (info.fields.containsKey(fieldName)) {
+                    String constant = info.fields.get(fieldName);
+                    if (constant == null) {
+                        change.members.add(info.name + "." + fieldName);
+                    } else {
+                        addChangedConstant(constant, change);
+                    }
+                    return;
+                }
+            }
+        }
+        for (ClassInfo info : compiled) {
+            change.wholeClasses.add(info.name);
+        }
+    }
+
+    /**
+     * An instance method of a class extending or implementing a library type may be called by the
+     * library (listeners, waits), where no indexed caller shows up; such a change counts for the whole class.
+     */
+    private boolean overridesLibraryMethod(ClassInfo info, MethodInfo method) {
+        if ((method.access & (ACC_STATIC | ACC_PRIVATE)) != 0 || method.name.startsWith("<")) {
+            return false;
+        }
+        for (String type : supertypes(info.name)) {
+            if (!classes.containsKey(type) && !"java.lang.Object".equals(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A changed string constant also changes the constants built from it, e.g. A = B + "/x".
+     */
+    private void addChangedConstant(String constant, Change change) {
+        change.constants.add(constant);
+        if (!constant.startsWith("S:") || constant.length() <= 2) {
+            return;
+        }
+        String value = constant.substring(2);
+        for (ClassInfo info : classes.values()) {
+            for (String other : info.fields.values()) {
+                if (other != null && other.startsWith("S:") && other.contains(value)) {
+                    change.constants.add(other);
+                }
+            }
+        }
+    }
+
+    private static boolean isCode(String line) {
+        String trimmed = line.trim();
+        return !(trimmed.isEmpty() || trimmed.startsWith("//") || trimmed.startsWith("/*") || trimmed.startsWith("*"));
+    }
+
+    /**
+     * Marks every method which uses a changed method, field or constant, until nothing new is reached.
+     */
+    private Set<MethodInfo> propagate(Change change) {
+        Set<MethodInfo> affected = new HashSet<MethodInfo>();
+        Deque<MethodInfo> queue = new ArrayDeque<MethodInfo>();
+        Set<String> wholeClasses = new HashSet<String>(change.wholeClasses);
+        Set<String> members = new HashSet<String>(change.members);
+        for (MethodInfo method : change.methods) {
+            if (affected.add(method)) {
+                queue.add(method);
+            }
+        }
+        boolean grown = true;
+        while (grown) {
+            grown = false;
+            while (!queue.isEmpty()) {
+                MethodInfo method = queue.poll();
+                members.add(method.owner + "." + method.name);
+                Matcher lambda = LAMBDA.matcher(method.name);
+                if (lambda.matches()) {
+                    members.add(method.owner + "." + lambda.group(1));
+                }
+            }
+            for (ClassInfo info : classes.values()) {
+                for (MethodInfo method : info.methods) {
+                    if (!affected.contains(method) && uses(method, wholeClasses, members, change.constants)) {
+                        affected.add(method);
+                        queue.add(method);
+                        grown = true;
+                        if (CLASS_INIT.equals(method.name)) {
+                            wholeClasses.add(info.name);
+                        }
+                    }
+                }
+            }
+        }
+        change.wholeClasses.addAll(wholeClasses);
+        return affected;
+    }
+
+    private boolean uses(MethodInfo method, Set<String> wholeClasses, Set<String> members, Set<String> constants) {
+        for (String constant : method.constants) {
+            if (constants.contains(constant)) {
+                return true;
+            }
+        }
+        for (String ref : method.memberRefs) {
+            int dot = ref.lastIndexOf('.');
+            String owner = ref.substring(0, dot);
+            String name = ref.substring(dot + 1);
+            for (String type : related(owner)) {
+                if (wholeClasses.contains(type) || members.contains(type + "." + name)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A member used through owner may be declared in a supertype (inherited) or a subtype (overridden).
+     */
+    private Set<String> related(String owner) {
+        Set<String> related = relatedTypes.get(owner);
+        if (related == null) {
+            related = supertypes(owner);
+            for (ClassInfo info : classes.values()) {
+                if (supertypes(info.name).contains(owner)) {
+                    related.add(info.name);
+                }
+            }
+            relatedTypes.put(owner, related);
+        }
+        return related;
+    }
+
+    /**
+     * @return the class and its indexed superclasses and interfaces
+     */
+    private Set<String> supertypes(String className) {
+        Set<String> types = new LinkedHashSet<String>();
+        Deque<String> queue = new ArrayDeque<String>(Collections.singleton(className));
+        while (!queue.isEmpty()) {
+            String type = queue.poll();
+            if (!types.add(type)) {
+                continue;
+            }
+            ClassInfo info = classes.get(type);
+            if (info != null) {
+                if (info.superName != null) {
+                    queue.add(info.superName);
+                }
+                queue.addAll(info.interfaces);
+            }
+        }
+        return types;
+    }
+
+    /**
+     * The changes found in the diff.
+     */
+    private static class Change {
+        final Set<String> wholeClasses = new LinkedHashSet<String>();
+        final Set<MethodInfo> methods = new LinkedHashSet<MethodInfo>();
+        final Set<String> members = new LinkedHashSet<String>();
+        final Set<String> constants = new LinkedHashSet<String>();
+
+        boolean isEmpty() {
+            return wholeClasses.isEmpty() && methods.isEmpty() && members.isEmpty() && constants.isEmpty();
+        }
+
+        String describe() {
+            Set<String> changed = new LinkedHashSet<String>(wholeClasses);
+            for (MethodInfo method : methods) {
+                changed.add(method.owner + "." + method.name);
+            }
+            changed.addAll(members);
+            for (String constant : constants) {
+                changed.add("constant " + constant.substring(2));
+            }
+            return "changed: " + changed;
+        }
+    }
+
+    static final class ClassInfo {
+        String name;
+        String superName;
+        final List<String> interfaces = new ArrayList<String>();
+        String sourceFile;
+        final Set<String> classRefs = new HashSet<String>();
+        /** field name to the constant key of its compile-time value, null when it has none */
+        final Map<String, String> fields = new HashMap<String, String>();
+        final List<MethodInfo> methods = new ArrayList<MethodInfo>();
+
+        String getPackage() {
+            int dot = name.lastIndexOf('.');
+            return dot < 0 ? "" : name.substring(0, dot);
+        }
+    }
+
+    static final class MethodInfo {
+        final String owner;
+        final String name;
+        final int access;
+        int firstLine = -1;
+        int lastLine = -1;
+        /** owner.name of every method and field the code uses */
+        final Set<String> memberRefs = new HashSet<String>();
+        /** constant keys (S:text, I:42, ...) of every value the code loads */
+        final Set<String> constants = new HashSet<String>();
+
+        MethodInfo(String owner, String name, int access) {
+            this.owner = owner;
+            this.name = name;
+            this.access = access;
+        }
+    }
+
+    /**
+     * Minimal class file reader: constant pool, fields with constant values, method code and
+     * line numbers, bootstrap methods and source file.
+     */
+    static final class ClassFileReader {
+        private static final int CODE_START_OF_SWITCH_PADDING = 4;
+
+        private final DataInputStream in;
+        private Object[] pool;
+        private int[] tags;
+        private final ClassInfo info = new ClassInfo();
+        private final List<List<String>> bootstrapHandles = new ArrayList<List<String>>();
+        private final Map<MethodInfo, List<Integer>> pendingBootstraps = new HashMap<MethodInfo, List<Integer>>();
+
+        private ClassFileReader(byte[] bytes) {
+            this.in = new DataInputStream(new ByteArrayInputStream(bytes));
+        }
+
+        static ClassInfo read(byte[] bytes) throws IOException {
+            return new ClassFileReader(bytes).parse();
+        }
+
+        private ClassInfo parse() throws IOException {
+            if (in.readInt() != 0xCAFEBABE) {
+                throw new IOException("Not a class file");
+            }
+            in.readUnsignedShort();
+            in.readUnsignedShort();
+            readPool();
+            in.readUnsignedShort();
+            info.name = className(in.readUnsignedShort());
+            int superIndex = in.readUnsignedShort();
+            info.superName = superIndex == 0 ? null : className(superIndex);
+            int interfaceCount = in.readUnsignedShort();
+            for (int i = 0; i < interfaceCount; i++) {
+                info.interfaces.add(className(in.readUnsignedShort()));
+            }
+            int fieldCount = in.readUnsignedShort();
+            for (int i = 0; i < fieldCount; i++) {
+                readField();
+            }
+            int methodCount = in.readUnsignedShort();
+            for (int i = 0; i < methodCount; i++) {
+                readMethod();
+            }
+            int attributeCount = in.readUnsignedShort();
+            for (int i = 0; i < attributeCount; i++) {
+                String name = utf8(in.readUnsignedShort());
+                int length = in.readInt();
+                if ("SourceFile".equals(name)) {
+                    info.sourceFile = utf8(in.readUnsignedShort());
+                } else if ("BootstrapMethods".equals(name)) {
+                    readBootstrapMethods();
+                } else {
+                    in.skipBytes(length);
+                }
+            }
+            for (Map.Entry<MethodInfo, List<Integer>> pending : pendingBootstraps.entrySet()) {
+                for (int bootstrap : pending.getValue()) {
+                    if (bootstrap < bootstrapHandles.size()) {
+                        pending.getKey().memberRefs.addAll(bootstrapHandles.get(bootstrap));
+                    }
+                }
+            }
+            return info;
+        }
+
+        private void readPool() throws IOException {
+            int count = in.readUnsignedShort();
+            pool = new Object[count];
+            tags = new int[count];
+            for (int i = 1; i < count; i++) {
+                int tag = in.readUnsignedByte();
+                tags[i] = tag;
+                switch (tag) {
+                    case 1:
+                        String utf8 = in.readUTF();
+                        pool[i] = utf8;
+                        addDescriptorRefs(utf8);
+                        break;
+                    case 3:
+                        pool[i] = "I:" + in.readInt();
+                        break;
+                    case 4:
+                        pool[i] = "F:" + in.readFloat();
+                        break;
+                    case 5:
+                        pool[i] = "J:" + in.readLong();
+                        i++;
+                        break;
+                    case 6:
+                        pool[i] = "D:" + in.readDouble();
+                        i++;
+                        break;
+                    case 7:
+                    case 8:
+                    case 16:
+                    case 19:
+                    case 20:
+                        pool[i] = new int[] {in.readUnsignedShort()};
+                        break;
+                    case 9:
+                    case 10:
+                    case 11:
+                    case 12:
+                    case 17:
+                    case 18:
+                        pool[i] = new int[] {in.readUnsignedShort(), in.readUnsignedShort()};
+                        break;
+                    case 15:
+                        pool[i] = new int[] {in.readUnsignedByte(), in.readUnsignedShort()};
+                        break;
+                    default:
+                        throw new IOException("Unknown constant pool tag " + tag);
+                }
+            }
+            for (int i = 1; i < count; i++) {
+                if (tags[i] == 7) {
+                    String name = utf8(((int[]) pool[i])[0]);
+                    if (!name.startsWith("[")) {
+                        info.classRefs.add(name.replace('/', '.'));
+                    }
+                }
+            }
+        }
+
+        private void addDescriptorRefs(String utf8) {
+            int start = utf8.indexOf('L');
+            while (start >= 0) {
+                int end = utf8.indexOf(';', start);
+                if (end < 0) {
+                    return;
+                }
+                String candidate = utf8.substring(start + 1, end);
+                if (candidate.indexOf('/') > 0 && candidate.matches("[\\w/$]+")) {
+                    info.classRefs.add(candidate.replace('/', '.'));
+                }
+                start = utf8.indexOf('L', end);
+            }
+        }
+
+        private void readField() throws IOException {
+            in.readUnsignedShort();
+            String name = utf8(in.readUnsignedShort());
+            in.readUnsignedShort();
+            String constant = null;
+            int attributeCount = in.readUnsignedShort();
+            for (int i = 0; i < attributeCount; i++) {
+                String attribute = utf8(in.readUnsignedShort());
+                int length = in.readInt();
+                if ("ConstantValue".equals(attribute)) {
+                    constant = constantKey(in.readUnsignedShort());
+                } else {
+                    in.skipBytes(length);
+                }
+            }
+            info.fields.put(name, constant);
+        }
+
+        private void readMethod() throws IOException {
+            int access = in.readUnsignedShort();
+            MethodInfo method = new MethodInfo(info.name, utf8(in.readUnsignedShort()), access);
+            in.readUnsignedShort();
+            int attributeCount = in.readUnsignedShort();
+            for (int i = 0; i < attributeCount; i++) {
+                String attribute = utf8(in.readUnsignedShort());
+                int length = in.readInt();
+                if ("Code".equals(attribute)) {
+                    readCode(method);
+                } else {
+                    in.skipBytes(length);
+                }
+            }
+            info.methods.add(method);
+        }
+
+        private void readCode(MethodInfo method) throws IOException {
+            in.readUnsignedShort();
+            in.readUnsignedShort();
+            byte[] code = new byte[in.readInt()];
+            in.readFully(code);
+            scanInstructions(method, code);
+            in.skipBytes(in.readUnsignedShort() * 8);
+            int attributeCount = in.readUnsignedShort();
+            for (int i = 0; i < attributeCount; i++) {
+                String attribute = utf8(in.readUnsignedShort());
+                int length = in.readInt();
+                if ("LineNumberTable".equals(attribute)) {
+                    int entries = in.readUnsignedShort();
+                    for (int e = 0; e < entries; e++) {
+                        in.readUnsignedShort();
+                        int line = in.readUnsignedShort();
+                        method.firstLine = method.firstLine < 0 ? line : Math.min(method.firstLine, line);
+                        method.lastLine = Math.max(method.lastLine, line);
+                    }
+                } else {
+                    in.skipBytes(length);
+                }
+            }
+        }
+
+        /**
+         * Walks the bytecode and records member references, loaded constants and invokedynamic call sites.
+         */
+        private void scanInstructions(MethodInfo method, byte[] code) {
+            int pc = 0;
+            while (pc < code.length) {
+                int opcode = code[pc] & 0xff;
+                switch (opcode) {
+                    case 0x02: case 0x03: case 0x04: case 0x05: case 0x06: case 0x07: case 0x08:
+                        method.constants.add("I:" + (opcode - 0x03));
+                        pc += 1;
+                        break;
+                    case 0x09: case 0x0a:
+                        method.constants.add("J:" + (opcode - 0x09));
+                        pc += 1;
+                        break;
+                    case 0x0b: case 0x0c: case 0x0d:
+                        method.constants.add("F:" + (float) (opcode - 0x0b));
+                        pc += 1;
+                        break;
+                    case 0x0e: case 0x0f:
+                        method.constants.add("D:" + (double) (opcode - 0x0e));
+                        pc += 1;
+                        break;
+                    case 0x10:
+                        method.constants.add("I:" + code[pc + 1]);
+                        pc += 2;
+                        break;
+                    case 0x11:
+                        method.constants.add("I:" + (short) u2(code, pc + 1));
+                        pc += 3;
+                        break;
+                    case 0x12:
+                        addConstant(method, code[pc + 1] & 0xff);
+                        pc += 2;
+                        break;
+                    case 0x13: case 0x14:
+                        addConstant(method, u2(code, pc + 1));
+                        pc += 3;
+                        break;
+                    case 0xb2: case 0xb3: case 0xb4: case 0xb5: case 0xb6: case 0xb7: case 0xb8:
+                        addMemberRef(method, u2(code, pc + 1));
+                        pc += 3;
+                        break;
+                    case 0xb9:
+                        addMemberRef(method, u2(code, pc + 1));
+                        pc += 5;
+                        break;
+                    case 0xba:
+                        int bootstrap = ((int[]) pool[u2(code, pc + 1)])[0];
+                        pendingBootstraps.computeIfAbsent(method, m -> new ArrayList<Integer>()).add(bootstrap);
+                        pc += 5;
+                        break;
+                    case 0xaa: {
+                        int base = pc;
+                        pc = base + CODE_START_OF_SWITCH_PADDING - (base % 4);
+                        int low = s4(code, pc + 4);
+                        int high = s4(code, pc + 8);
+                        pc += 12 + (high - low + 1) * 4;
+                        break;
+                    }
+                    case 0xab: {
+                        int base = pc;
+                        pc = base + CODE_START_OF_SWITCH_PADDING - (base % 4);
+                        int pairs = s4(code, pc + 4);
+                        pc += 8 + pairs * 8;
+                        break;
+                    }
+                    case 0xc4:
+                        pc += (code[pc + 1] & 0xff) == 0x84 ? 6 : 4;
+                        break;
+                    default:
+                        pc += 1 + operandLength(opcode);
+                }
+            }
+        }
+
+        private static int operandLength(int opcode) {
+            if ((opcode >= 0x15 && opcode <= 0x19) || (opcode >= 0x36 && opcode <= 0x3a) || opcode == 0xa9 || opcode == 0xbc) {
+                return 1;
+            }
+            if (opcode == 0x84 || (opcode >= 0x99 && opcode <= 0xa8) || opcode == 0xbb || opcode == 0xbd
+                    || opcode == 0xc0 || opcode == 0xc1 || opcode == 0xc6 || opcode == 0xc7) {
+                return 2;
+            }
+            if (opcode == 0xc5) {
+                return 3;
+            }
+            if (opcode == 0xc8 || opcode == 0xc9) {
+                return 4;
+            }
+            return 0;
+        }
+
+        private void readBootstrapMethods() throws IOException {
+            int count = in.readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                in.readUnsignedShort();
+                List<String> handles = new ArrayList<String>();
+                int argumentCount = in.readUnsignedShort();
+                for (int a = 0; a < argumentCount; a++) {
+                    int argument = in.readUnsignedShort();
+                    if (tags[argument] == 15) {
+                        String ref = memberRef(((int[]) pool[argument])[1]);
+                        if (ref != null) {
+                            handles.add(ref);
+                        }
+                    }
+                }
+                bootstrapHandles.add(handles);
+            }
+        }
+
+        private void addConstant(MethodInfo method, int index) {
+            String key = constantKey(index);
+            if (key != null) {
+                method.constants.add(key);
+            }
+        }
+
+        private void addMemberRef(MethodInfo method, int index) {
+            String ref = memberRef(index);
+            if (ref != null) {
+                method.memberRefs.add(ref);
+            }
+        }
+
+        /**
+         * @return owner.name of a field or method reference, null for array owners
+         */
+        private String memberRef(int index) {
+            int[] ref = (int[]) pool[index];
+            String owner = utf8(((int[]) pool[ref[0]])[0]);
+            if (owner.startsWith("[")) {
+                return null;
+            }
+            String name = utf8(((int[]) pool[ref[1]])[0]);
+            return owner.replace('/', '.') + "." + name;
+        }
+
+        private String constantKey(int index) {
+            switch (tags[index]) {
+                case 3:
+                case 4:
+                case 5:
+                case 6:
+                    return (String) pool[index];
+                case 8:
+                    return "S:" + utf8(((int[]) pool[index])[0]);
+                default:
+                    return null;
+            }
+        }
+
+        private String className(int index) {
+            return utf8(((int[]) pool[index])[0]).replace('/', '.');
+        }
+
+        private String utf8(int index) {
+            return (String) pool[index];
+        }
+
+        private static int u2(byte[] code, int at) {
+            return ((code[at] & 0xff) << 8) | (code[at + 1] & 0xff);
+        }
+
+        private static int s4(byte[] code, int at) {
+            return ((code[at] & 0xff) << 24) | ((code[at + 1] & 0xff) << 16) | ((code[at + 2] & 0xff) << 8) | (code[at + 3] & 0xff);
+        }
+    }
+}
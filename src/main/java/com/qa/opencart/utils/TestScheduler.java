@@ -0,0 +1,100 @@
+package com.qa.opencart.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Longest-processing-time-first scheduling of test classes.<br/>
+ * Classes are sorted by expected duration, longest first, and each one goes to the
+ * least loaded bin (fork or thread). Classes without history are estimated with the
+ * average of the known ones; with no history at all every class weighs the same,
+ * which degrades to a round robin in declaration order.
+ */
+public final class TestScheduler {
+
+    private TestScheduler() {
+    }
+
+    /**
+     * Returns the expected duration of every class, in the given order.
+     * @param classNames
+     * @param history
+     * @return
+     */
+    public static Map<String, Long> estimate(Collection<String> classNames, TestDurationHistory history) {
+        long known = 0;
+        long total = 0;
+        for (String className : classNames) {
+            long millis = history.getClassMillis(className);
+            if (millis >= 0) {
+                known++;
+                total += millis;
+            }
+        }
+        long fallback = known == 0 ? 1 : Math.max(1, total / known);
+        Map<String, Long> estimates = new LinkedHashMap<String, Long>();
+        for (String className : classNames) {
+            long millis = history.getClassMillis(className);
+            estimates.put(className, millis >= 0 ? millis : fallback);
+        }
+        return estimates;
+    }
+
+    /**
+     * Returns the class names longest first; equal durations keep their order.
+     * @param estimates
+     * @return
+     */
+    public static List<String> longestFirst(Map<String, Long> estimates) {
+        List<String> ordered = new ArrayList<String>(estimates.keySet());
+        ordered.sort(Comparator.comparing((String name) -> estimates.get(name)).reversed());
+        return ordered;
+    }
+
+    /**
+     * Packs the classes into the given number of bins, longest first into the least loaded bin.
+     * @param estimates class name to expected duration
+     * @param binCount
+     * @return the classes of every bin, each bin longest first
+     */
+    public static List<List<String>> pack(Map<String, Long> estimates, int binCount) {
+        List<List<String>> bins = new ArrayList<List<String>>();
+        long[] loads = new long[binCount];
+        for (int i = 0; i < binCount; i++) {
+            bins.add(new ArrayList<String>());
+        }
+        for (String className : longestFirst(estimates)) {
+            int target = 0;
+            for (int i = 1; i < binCount; i++) {
+                if (loads[i] < loads[target]) {
+                    target = i;
+                }
+            }
+            bins.get(target).add(className);
+            loads[target] += estimates.get(className);
+        }
+        return bins;
+    }
+
+    /**
+     * Returns the expected wall-clock time of the packed bins, i.e. the load of the fullest bin.
+     * @param bins
+     * @param estimates
+     * @return
+     */
+    public static long makespan(List<List<String>> bins, Map<String, Long> estimates) {
+        long max = 0;
+        for (List<String> bin : bins) {
+            long load = 0;
+            for (String className : bin) {
+                load += estimates.get(className);
+            }
+            max = Math.max(max, load);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,194 @@
+package com.qa.opencart.utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.Sleeper;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Waits with millisecond polling that backs off: the first polls follow each other
+ * quickly and the interval grows until it reaches the maximum polling time.<br/>
+ * Element waits can also run inside the browser, where a MutationObserver and a
+ * requestAnimationFrame loop return as soon as the element shows up instead of
+ * polling over the wire.
+ */
+public class WaitEngine {
+
+    public static final Duration DEFAULT_INITIAL_POLLING = Duration.ofMillis(25);
+    public static final Duration DEFAULT_MAX_POLLING = Duration.ofMillis(500);
+    private static final double BACKOFF_FACTOR = 1.5;
+
+    private static final String IN_BROWSER_WAIT_SCRIPT = JavaScriptUtil.RESOLVE_FUNCTION
+            + JavaScriptUtil.VISIBLE_FUNCTION
+            + "var using = arguments[0], value = arguments[1], mustBeVisible = arguments[2],"
+            + "    timeout = arguments[3], done = arguments[arguments.length - 1];"
+            + "function check() {"
+            + "  var found = resolve(using, value);"
+            + "  for (var i = 0; i < found.length; i++) {"
+            + "    if (!mustBeVisible || visible(found[i])) { return found[i]; }"
+            + "  }"
+            + "  return null;"
+            + "}"
+            + "var first = check();"
+            + "if (first) { done(first); return; }"
+            + "var finished = false, timer, observer;"
+            + "function finish(result) {"
+            + "  if (finished) { return; }"
+            + "  finished = true;"
+            + "  observer.disconnect();"
+            + "  clearTimeout(timer);"
+            + "  done(result);"
+            + "}"
+            + "function tick() { var e = check(); if (e) { finish(e); } }"
+            + "observer = new MutationObserver(tick);"
+            + "observer.observe(document.documentElement,"
+            + "    {childList: true, subtree: true, attributes: true, characterData: true});"
+            + "if (mustBeVisible) {"
+            + "  (function frame() { if (!finished) { tick(); window.requestAnimationFrame(frame); } })();"
+            + "}"
+            + "timer = setTimeout(function () { finish(null); }, timeout);";
+
+    private final WebDriver driver;
+    private final Duration initialPolling;
+    private final Duration maxPolling;
+
+    /**
+     * Uses wait.polling.initial and wait.polling.max from the configuration.
+     * @param driver
+     */
+    public WaitEngine(WebDriver driver) {
+        this(driver,
+                ConfigManager.getInstance().getDuration("wait.polling.initial", DEFAULT_INITIAL_POLLING),
+                ConfigManager.getInstance().getDuration("wait.polling.max", DEFAULT_MAX_POLLING));
+    }
+
+    public WaitEngine(WebDriver driver, Duration initialPolling, Duration maxPolling) {
+        this.driver = driver;
+        this.initialPolling = initialPolling;
+        this.maxPolling = maxPolling;
+    }
+
+    /**
+     * Returns a WebDriverWait polling with adaptive backoff.<br/>
+     * NotFoundException is ignored as with a plain WebDriverWait; timeouts are counted in CommandMetrics.
+     * @param timeOut
+     * @param maxPolling upper bound for the polling interval
+     * @return
+     */
+    public WebDriverWait newWait(Duration timeOut, Duration maxPolling) {
+        return new WebDriverWait(driver, timeOut, maxPolling, Clock.systemDefaultZone(),
+                new BackoffSleeper(initialPolling, maxPolling)) {
+            @Override
+            protected RuntimeException timeoutException(String message, Throwable lastException) {
+                CommandMetrics.increment(CommandMetrics.WAIT_TIMEOUTS);
+                return super.timeoutException(message, lastException);
+            }
+        };
+    }
+
+    /**
+     * Returns a WebDriverWait polling with adaptive backoff up to the configured maximum interval.
+     * @param timeOut
+     * @return
+     */
+    public WebDriverWait newWait(Duration timeOut) {
+        return newWait(timeOut, maxPolling);
+    }
+
+    /**
+     * Starts a wait which returns as soon as any of its conditions holds, see MultiConditionWait.
+     * @return
+     */
+    public MultiConditionWait anyOf() {
+        return new MultiConditionWait(driver, MultiConditionWait.Mode.ANY_OF, initialPolling, maxPolling);
+    }
+
+    /**
+     * Starts a wait which returns once all of its conditions hold in the same poll.
+     * @return
+     */
+    public MultiConditionWait allOf() {
+        return new MultiConditionWait(driver, MultiConditionWait.Mode.ALL_OF, initialPolling, maxPolling);
+    }
+
+    /**
+     * Starts a wait which returns once none of its conditions holds.
+     * @return
+     */
+    public MultiConditionWait noneOf() {
+        return new MultiConditionWait(driver, MultiConditionWait.Mode.NONE_OF, initialPolling, maxPolling);
+    }
+
+    /**
+     * Waits inside the browser for the first element matching the locator.<br/>
+     * Falls back to adaptive polling when the driver cannot run asynchronous scripts,
+     * the locator has no JavaScript equivalent or the page unloads during the wait.
+     * @param locator
+     * @param mustBeVisible true to wait for visibility, false for presence only
+     * @param timeOut
+     * @return
+     */
+    public WebElement waitInBrowser(By locator, boolean mustBeVisible, Duration timeOut) {
+        String[] query = JavaScriptUtil.toQuery(locator);
+        long start = System.nanoTime();
+        if (query != null && driver instanceof JavascriptExecutor) {
+            Duration scriptTimeout = null;
+            try {
+                scriptTimeout = driver.manage().timeouts().getScriptTimeout();
+                driver.manage().timeouts().scriptTimeout(timeOut.plusSeconds(1));
+                Object found = ((JavascriptExecutor) driver).executeAsyncScript(IN_BROWSER_WAIT_SCRIPT,
+                        query[0], query[1], mustBeVisible, timeOut.toMillis());
+                if (found instanceof WebElement) {
+                    return (WebElement) found;
+                }
+                if (found == null) {
+                    CommandMetrics.increment(CommandMetrics.WAIT_TIMEOUTS);
+                    throw new TimeoutException(locator + " is not found within " + timeOut.toMillis() + " ms");
+                }
+            } catch (TimeoutException e) {
+                throw e;
+            } catch (WebDriverException e) {
+                // page unloaded or scripts not supported: continue with polling
+            } finally {
+                if (scriptTimeout != null) {
+                    driver.manage().timeouts().scriptTimeout(scriptTimeout);
+                }
+            }
+        }
+        Duration remaining = timeOut.minusNanos(System.nanoTime() - start);
+        WebDriverWait wait = newWait(remaining.isNegative() ? Duration.ZERO : remaining);
+        return wait.until(mustBeVisible
+                ? ExpectedConditions.visibilityOfElementLocated(locator)
+                : ExpectedConditions.presenceOfElementLocated(locator));
+    }
+
+    /**
+     * Sleeper which ignores the fixed polling interval of FluentWait and sleeps
+     * for a growing interval instead: initial, initial * 1.5, ... up to max.<br/>
+     * One instance belongs to exactly one wait.
+     */
+    static class BackoffSleeper implements Sleeper {
+        private final long maxNanos;
+        private long nextNanos;
+
+        BackoffSleeper(Duration initial, Duration max) {
+            this.maxNanos = Math.max(1, max.toNanos());
+            this.nextNanos = Math.min(Math.max(1, initial.toNanos()), maxNanos);
+        }
+
+        @Override
+        public void sleep(Duration ignored) throws InterruptedException {
+            long sleepNanos = nextNanos;
+            nextNanos = Math.min(maxNanos, (long) (nextNanos * BACKOFF_FACTOR));
+            Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+        }
+    }
+}
@@ -2,32 +2,85 @@ package com.qa.opencart.tests;
 
 import com.qa.opencart.factory.DriverFactory;
 import com.qa.opencart.pages.LoginPage;
+import com.qa.opencart.utils.ConfigManager;
 import org.openqa.selenium.WebDriver;
-import org.testng.annotations.AfterTest;
-import org.testng.annotations.BeforeTest;
+import org.testng.ITestResult;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
 
 import java.util.Properties;
 
+/**
+ * Binds a driver to the thread running the tests.<br/>
+ * driver.scope = class shares one driver between the methods of a test class,
+ * driver.scope = method gives every test method its own (pooled) driver.
+ * With parallel="methods" a class scoped test still gets a driver per method,
+ * because its methods run on different threads.
+ * A shared class scoped driver is probed before each method and replaced when its session died.
+ * It is quit by @AfterClass through the reference kept here, as that may run on another thread.
+ */
 public class BaseTest {
 
-    DriverFactory driverFactory;
-    WebDriver driver;
+    DriverFactory driverFactory = new DriverFactory();
     Properties prop;
     LoginPage loginPage;
 
-    @BeforeTest
+    private boolean perMethod;
+    private volatile WebDriver classDriver;
+    private volatile boolean classFailed;
+    private final ThreadLocal<Boolean> methodBound = new ThreadLocal<>();
+
+    @BeforeClass(alwaysRun = true)
     public void setup(){
-        driverFactory = new DriverFactory();
         prop = driverFactory.init_properties();
-//        driver = driverFactory.init_driver("chrome");
-        driver = driverFactory.init_driver(prop);
+        perMethod = "method".equalsIgnoreCase(ConfigManager.getInstance().getString("driver.scope", "class"));
 //        loginPage = new LoginPage(driver);
         loginPage = new LoginPage();
+        if (!perMethod) {
+            classDriver = driverFactory.init_driver();
+        }
+    }
+
+    @BeforeMethod(alwaysRun = true)
+    public void bindDriver(){
+        WebDriver bound = DriverFactory.getDriver();
+        if (!perMethod && bound != null && bound == classDriver) {
+            classDriver = driverFactory.replaceIfDead();
+            return;
+        }
+        if (bound != null) {
+            // left behind by a class whose @AfterClass ran on another thread
+            DriverFactory.unbindDriver();
+        }
+        driverFactory.init_driver();
+        methodBound.set(Boolean.TRUE);
+    }
 
+    @AfterMethod(alwaysRun = true)
+    public void releaseDriver(ITestResult result){
+        boolean failed = result.getStatus() == ITestResult.FAILURE;
+        if (Boolean.TRUE.equals(methodBound.get())) {
+            methodBound.remove();
+            driverFactory.quit_driver(failed);
+        } else if (failed) {
+            classFailed = true;
+        }
     }
 
-    @AfterTest
+    @AfterClass(alwaysRun = true)
     public void tearDown(){
-        driver.quit();
+        WebDriver driver = classDriver;
+        classDriver = null;
+        driverFactory.quit_driver(driver, classFailed);
+    }
+
+    /**
+     * Returns the driver bound to the current thread.
+     * @return
+     */
+    protected WebDriver getDriver(){
+        return DriverFactory.getDriver();
     }
 }
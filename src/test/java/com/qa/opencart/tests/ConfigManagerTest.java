@@ -0,0 +1,55 @@
+package com.qa.opencart.tests;
+
+import com.qa.opencart.utils.ConfigManager;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.Properties;
+
+public class ConfigManagerTest {
+
+    private ConfigManager config(String key, String value) {
+        Properties prop = new Properties();
+        prop.setProperty(key, value);
+        return ConfigManager.of(prop);
+    }
+
+    @Test
+    public void classpathConfigIsLoadedTest() {
+        Assert.assertTrue(ConfigManager.getInstance().has("url"));
+    }
+
+    @Test
+    public void durationFormatsTest() {
+        Assert.assertEquals(config("t", "250ms").getDuration("t", null), Duration.ofMillis(250));
+        Assert.assertEquals(config("t", "10s").getDuration("t", null), Duration.ofSeconds(10));
+        Assert.assertEquals(config("t", "2m").getDuration("t", null), Duration.ofMinutes(2));
+        Assert.assertEquals(config("t", "24h").getDuration("t", null), Duration.ofHours(24));
+        Assert.assertEquals(config("t", "PT5S").getDuration("t", null), Duration.ofSeconds(5));
+        Assert.assertEquals(config("t", "7").getDuration("t", null), Duration.ofSeconds(7));
+    }
+
+    @Test
+    public void blankValueFallsBackToDefaultTest() {
+        ConfigManager config = config("pool.size", " ");
+        Assert.assertEquals(config.getInt("pool.size", 3), 3);
+        Assert.assertEquals(config.getString("pool.size", "x"), "x");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void invalidNumberIsReportedTest() {
+        config("pool.size", "two").getInt("pool.size", 1);
+    }
+
+    @Test
+    public void booleanIgnoresCaseTest() {
+        Assert.assertTrue(config("headless", "TRUE").getBoolean("headless", false));
+        Assert.assertFalse(config("headless", "False").getBoolean("headless", true));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*headless.*ture")
+    public void invalidBooleanIsReportedTest() {
+        config("headless", "ture").getBoolean("headless", false);
+    }
+}
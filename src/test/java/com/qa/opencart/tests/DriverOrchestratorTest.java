@@ -0,0 +1,112 @@
+package com.qa.opencart.tests;
+
+import com.qa.opencart.factory.DriverFactory;
+import com.qa.opencart.factory.DriverOrchestrator;
+import org.openqa.selenium.WebDriver;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DriverOrchestratorTest {
+
+    private WebDriver fakeDriver(String title) {
+        return (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {WebDriver.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getTitle":
+                            Thread.sleep(200);
+                            return title;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    @Test
+    public void driversRunConcurrentlyTest() {
+        List<WebDriver> drivers = Arrays.asList(fakeDriver("buyer"), fakeDriver("admin"), fakeDriver("guest"));
+        // every action waits until all three have started, which only happens when they overlap
+        CyclicBarrier started = new CyclicBarrier(drivers.size());
+        try (DriverOrchestrator orchestrator = new DriverOrchestrator()) {
+            List<String> titles = orchestrator.invokeAll(drivers, driver -> {
+                try {
+                    started.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+                    throw new IllegalStateException("the actions did not run concurrently", e);
+                }
+                return driver.getTitle();
+            }, Duration.ofSeconds(10));
+
+            Assert.assertEquals(titles, Arrays.asList("buyer", "admin", "guest"));
+        }
+    }
+
+    @Test
+    public void driverIsConfinedToOneWorkerTest() {
+        WebDriver driver = fakeDriver("shared");
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        try (DriverOrchestrator orchestrator = new DriverOrchestrator(false, 4)) {
+            List<CompletableFuture<WebDriver>> futures = Arrays.asList(
+                    orchestrator.submit(driver, d -> track(d, active, maxActive)),
+                    orchestrator.submit(driver, d -> track(d, active, maxActive)),
+                    orchestrator.submit(driver, d -> track(d, active, maxActive)));
+            for (WebDriver bound : DriverOrchestrator.await(futures, Duration.ofSeconds(5))) {
+                Assert.assertSame(bound, driver);
+            }
+        }
+        Assert.assertEquals(maxActive.get(), 1);
+        Assert.assertNull(DriverFactory.getDriver());
+    }
+
+    private WebDriver track(WebDriver driver, AtomicInteger active, AtomicInteger maxActive) {
+        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+        driver.getTitle();
+        active.decrementAndGet();
+        return DriverFactory.getDriver();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "boom")
+    public void failuresArePropagatedTest() {
+        try (DriverOrchestrator orchestrator = new DriverOrchestrator()) {
+            orchestrator.invokeAll(Arrays.asList(fakeDriver("a"), fakeDriver("b")), d -> {
+                throw new IllegalStateException("boom");
+            }, Duration.ofSeconds(5));
+        }
+    }
+
+    @Test
+    public void timedOutActionIsInterruptedTest() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try (DriverOrchestrator orchestrator = new DriverOrchestrator(false, 2)) {
+            IllegalStateException e = Assert.expectThrows(IllegalStateException.class,
+                    () -> orchestrator.invokeAll(Arrays.asList(fakeDriver("slow")), d -> {
+                        try {
+                            Thread.sleep(10_000);
+                        } catch (InterruptedException stopped) {
+                            interrupted.countDown();
+                        }
+                        return null;
+                    }, Duration.ofMillis(100)));
+
+            Assert.assertTrue(e.getMessage().contains("did not finish within 100 ms"), e.getMessage());
+            // before close(), which would interrupt the worker as well
+            Assert.assertTrue(interrupted.await(2, TimeUnit.SECONDS));
+        }
+    }
+}
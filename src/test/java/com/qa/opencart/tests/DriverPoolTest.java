@@ -0,0 +1,69 @@
+package com.qa.opencart.tests;
+
+import com.qa.opencart.factory.DriverPool;
+import com.qa.opencart.utils.CommandMetrics;
+import org.openqa.selenium.WebDriver;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class DriverPoolTest {
+
+    /**
+     * Driver with a single window which answers every command.
+     */
+    private WebDriver fakeDriver() {
+        WebDriver.Options options = (WebDriver.Options) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {WebDriver.Options.class}, (proxy, method, args) -> null);
+        return (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {WebDriver.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getWindowHandles":
+                            return Collections.singleton("main");
+                        case "manage":
+                            return options;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    @Test
+    public void releasingAnUnknownDriverKeepsTheLimitTest() {
+        DriverPool pool = new DriverPool(this::fakeDriver, 1, 0, 10, "about:blank");
+        WebDriver driver = pool.checkout(1);
+        pool.release(driver, true);
+        // released again, and a driver the pool never started
+        pool.release(driver, true);
+        pool.release(fakeDriver(), true);
+
+        pool.checkout(1);
+        Assert.expectThrows(IllegalStateException.class, () -> pool.checkout(0));
+        Assert.assertEquals(pool.getRecycled(), 1);
+    }
+
+    @Test
+    public void onlyOpenedSessionsCountAsReplacementsTest() {
+        Set<WebDriver> dead = new HashSet<WebDriver>();
+        DriverPool pool = new DriverPool(this::fakeDriver, 1, 0, 10, "about:blank", driver -> !dead.contains(driver));
+        long replacements = CommandMetrics.getCounter(CommandMetrics.SESSION_REPLACEMENTS);
+        WebDriver first = pool.checkout(1);
+        pool.release(first, false);
+        Assert.assertEquals(CommandMetrics.getCounter(CommandMetrics.SESSION_REPLACEMENTS), replacements);
+
+        // the idle session died while waiting
+        dead.add(first);
+        WebDriver second = pool.checkout(1);
+        Assert.assertNotSame(second, first);
+        Assert.assertEquals(pool.getUnhealthy(), 1);
+        Assert.assertEquals(CommandMetrics.getCounter(CommandMetrics.SESSION_REPLACEMENTS), replacements + 1);
+    }
+}
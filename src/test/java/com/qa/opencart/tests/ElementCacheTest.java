@@ -0,0 +1,89 @@
+package com.qa.opencart.tests;
+
+import com.qa.opencart.listeners.ElementCacheListener;
+import com.qa.opencart.utils.ElementCache;
+import com.qa.opencart.utils.ElementUtils;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ElementCacheTest {
+
+    private static final By LOGIN = By.id("login");
+
+    /**
+     * Driver whose findElement always answers with the same element.
+     */
+    private WebDriver fakeDriver() {
+        WebElement element = (WebElement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {WebElement.class}, (proxy, method, args) -> null);
+        return (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {WebDriver.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findElement":
+                            return element;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    /**
+     * Public, as the decorator calls its listeners through reflection.
+     */
+    public static class CountingListener implements WebDriverListener {
+        private final AtomicInteger finds = new AtomicInteger();
+        private final AtomicInteger clicks = new AtomicInteger();
+
+        @Override
+        public void beforeFindElement(WebDriver driver, By locator) {
+            finds.incrementAndGet();
+        }
+
+        @Override
+        public void beforeClick(WebElement element) {
+            clicks.incrementAndGet();
+        }
+    }
+
+    @Test
+    public void lookupsAndActionsGoThroughTheDecoratorTest() {
+        WebDriver original = fakeDriver();
+        CountingListener counts = new CountingListener();
+        WebDriver driver = new EventFiringDecorator(new ElementCacheListener(original), counts).decorate(original);
+        ElementUtils elementUtils = new ElementUtils(driver);
+
+        elementUtils.getElement(LOGIN);
+        elementUtils.getElement(LOGIN).click();
+        Assert.assertEquals(counts.finds.get(), 1);
+        Assert.assertEquals(counts.clicks.get(), 1);
+
+        // the click may have left the page
+        elementUtils.getElement(LOGIN);
+        Assert.assertEquals(counts.finds.get(), 2);
+        Assert.assertSame(ElementCache.forDriver(original), elementUtils.getElementCache());
+        ElementCache.remove(driver);
+    }
+
+    @Test
+    public void removedCacheIsNotReusedTest() {
+        WebDriver driver = fakeDriver();
+        ElementCache cache = ElementCache.forDriver(driver);
+        cache.get(driver, LOGIN);
+
+        ElementCache.remove(driver);
+        Assert.assertNotSame(ElementCache.forDriver(driver), cache);
+        ElementCache.remove(driver);
+    }
+}
@@ -0,0 +1,217 @@
+package com.qa.opencart.tests;
+
+import com.qa.opencart.utils.ConfigManager;
+import com.qa.opencart.utils.ExcelUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+public class ExcelUtilTest {
+    private static final int ROWS = 5000;
+    private static final String READER_THREAD = "excel-reader-login";
+    private File workbook;
+    private Path cacheDir;
+    private ConfigManager cached;
+    private ConfigManager streaming;
+
+    @BeforeClass
+    public void createWorkbook() throws IOException {
+        workbook = File.createTempFile("testdata", ".xlsx");
+        writeWorkbook(workbook, ROWS);
+        cacheDir = Files.createTempDirectory("excel-cache");
+        Properties prop = new Properties();
+        prop.setProperty("excel.cache.enabled", "true");
+        prop.setProperty("excel.cache.dir", cacheDir.toString());
+        cached = ConfigManager.of(prop);
+        prop.setProperty("excel.cache.enabled", "false");
+        streaming = ConfigManager.of(prop);
+    }
+
+    private static void writeWorkbook(File file, int rows) throws IOException {
+        try (SXSSFWorkbook wb = new SXSSFWorkbook(100); OutputStream out = new FileOutputStream(file)) {
+            Sheet sheet = wb.createSheet("login");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("username");
+            header.createCell(1).setCellValue("password");
+            header.createCell(2).setCellValue("enabled");
+            for (int i = 1; i <= rows; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue("user" + i);
+                if (i % 2 == 0) {
+                    row.createCell(1).setCellValue(i);
+                }
+                row.createCell(2).setCellValue(i % 10 == 0 ? "no" : "yes");
+            }
+            wb.createSheet("other");
+            wb.write(out);
+            wb.dispose();
+        }
+    }
+
+    @AfterClass
+    public void deleteWorkbook() throws IOException {
+        workbook.delete();
+        try (Stream<Path> files = Files.walk(cacheDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void allRowsAreStreamedTest() {
+        Iterator<Object[]> rows = ExcelUtil.getTestData(workbook.getPath(), "login", null, null, cached);
+        int count = 0;
+        Object[] last = null;
+        while (rows.hasNext()) {
+            last = rows.next();
+            count++;
+        }
+        Assert.assertEquals(count, ROWS);
+        Assert.assertEquals(last, new Object[] {"user" + ROWS, String.valueOf(ROWS), "no"});
+    }
+
+    @Test
+    public void projectionAndFilterTest() {
+        Iterator<Object[]> rows = ExcelUtil.getTestData(workbook.getPath(), "login",
+                new String[] {"password", "username"}, row -> row.get("enabled").equals("no"), cached);
+        List<Object[]> result = new ArrayList<Object[]>();
+        rows.forEachRemaining(result::add);
+        Assert.assertEquals(result.size(), ROWS / 10);
+        Assert.assertEquals(result.get(0), new Object[] {"10", "user10"});
+    }
+
+    @Test
+    public void emptyCellsAreBlankTest() {
+        Iterator<Object[]> rows = ExcelUtil.getTestData(workbook.getPath(), "login", null, null, cached);
+        Assert.assertEquals(rows.next(), new Object[] {"user1", "", "yes"});
+        ((ExcelUtil.ExcelRowIterator) rows).close();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void unknownSheetTest() {
+        ExcelUtil.getTestData(workbook.getPath(), "missing", null, null, cached).hasNext();
+    }
+
+    @Test
+    public void changedWorkbookIsCompiledAgainTest() throws IOException {
+        File changing = File.createTempFile("changing", ".xlsx");
+        try {
+            writeWorkbook(changing, 3);
+            Assert.assertEquals(count(ExcelUtil.getTestData(changing.getPath(), "login", null, null, cached)), 3);
+            Assert.assertEquals(count(ExcelUtil.getTestData(changing.getPath(), "login", null, null, cached)), 3);
+
+            writeWorkbook(changing, 7);
+            Assert.assertEquals(count(ExcelUtil.getTestData(changing.getPath(), "login", null, null, cached)), 7);
+
+            File[] compiled = cacheDir.toFile().listFiles(
+                    (dir, name) -> name.startsWith(changing.getName()) && name.endsWith(".bin"));
+            Assert.assertNotNull(compiled);
+            Assert.assertEquals(compiled.length, 1);
+        } finally {
+            changing.delete();
+        }
+    }
+
+    @Test
+    public void streamedRowsAreReadToTheEndTest() {
+        Iterator<Object[]> rows = ExcelUtil.getTestData(workbook.getPath(), "login", null, null, streaming);
+        Object[] last = null;
+        int count = 0;
+        while (rows.hasNext()) {
+            last = rows.next();
+            count++;
+        }
+        Assert.assertEquals(count, ROWS);
+        Assert.assertEquals(last, new Object[] {"user" + ROWS, String.valueOf(ROWS), "no"});
+        Assert.assertFalse(rows.hasNext());
+    }
+
+    @Test
+    public void streamedProjectionAndFilterTest() {
+        Iterator<Object[]> rows = ExcelUtil.getTestData(workbook.getPath(), "login",
+                new String[] {"password", "username"}, row -> row.get("enabled").equals("no"), streaming);
+        List<Object[]> result = new ArrayList<Object[]>();
+        rows.forEachRemaining(result::add);
+        Assert.assertEquals(result.size(), ROWS / 10);
+        Assert.assertEquals(result.get(0), new Object[] {"10", "user10"});
+        Assert.assertEquals(result.get(result.size() - 1), new Object[] {String.valueOf(ROWS), "user" + ROWS});
+    }
+
+    @Test
+    public void closeStopsTheParserTest() throws InterruptedException {
+        ExcelUtil.ExcelRowIterator rows = ExcelUtil.getTestData(workbook.getPath(), "login", null, null, streaming);
+        Assert.assertEquals(rows.next(), new Object[] {"user1", "", "yes"});
+        // the parser is blocked on the full queue
+        Assert.assertTrue(readerThreads() > 0);
+
+        rows.close();
+        Assert.assertFalse(rows.hasNext());
+        Assert.assertTrue(readersStop(() -> { }), "the parser thread is still running");
+    }
+
+    @Test
+    public void droppedIteratorStopsTheParserTest() throws InterruptedException {
+        readFirstRow();
+        Assert.assertTrue(readerThreads() > 0);
+
+        Assert.assertTrue(readersStop(System::gc), "the parser thread is still running");
+    }
+
+    /**
+     * Reads one row and drops the iterator without closing it, like a data provider abandoned by TestNG.
+     */
+    private void readFirstRow() {
+        Iterator<Object[]> rows = ExcelUtil.getTestData(workbook.getPath(), "login", null, null, streaming);
+        Assert.assertEquals(rows.next(), new Object[] {"user1", "", "yes"});
+    }
+
+    private static int readerThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().equals(READER_THREAD)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Waits up to ten seconds for every parser thread to end, running the action between checks.
+     */
+    private static boolean readersStop(Runnable action) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (readerThreads() > 0) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            action.run();
+            Thread.sleep(50);
+        }
+        return true;
+    }
+
+    private static int count(Iterator<Object[]> rows) {
+        int count = 0;
+        while (rows.hasNext()) {
+            rows.next();
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,136 @@
+package com.qa.opencart.tests;
+
+import com.qa.opencart.utils.AsyncLogAppender;
+import com.qa.opencart.utils.Log;
+import com.qa.opencart.utils.LogContext;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class LogTest {
+
+    private static class CollectingSink implements Consumer<String> {
+        private final StringBuffer text = new StringBuffer();
+
+        @Override
+        public void accept(String batch) {
+            text.append(batch);
+        }
+
+        String text() {
+            return text.toString();
+        }
+    }
+
+    @Test
+    public void keepsEveryEventInOrderPerThreadTest() throws InterruptedException {
+        CollectingSink sink = new CollectingSink();
+        AsyncLogAppender appender = new AsyncLogAppender(1 << 15, sink);
+        Log log = new Log("com.qa.opencart.tests.LogTest", Log.Level.INFO, appender);
+        int threads = 4;
+        int events = 5000;
+        List<Thread> producers = new ArrayList<Thread>();
+        for (int t = 0; t < threads; t++) {
+            int producer = t;
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < events; i++) {
+                    log.info("producer {} event {}", producer, i);
+                }
+            }, "producer-" + t));
+        }
+        for (Thread producer : producers) {
+            producer.start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        Assert.assertTrue(appender.flush(Duration.ofSeconds(10)));
+        Assert.assertEquals(appender.getDropped(), 0);
+
+        int[] next = new int[threads];
+        Matcher matcher = Pattern.compile("\\[producer-(\\d)] LogTest - producer \\1 event (\\d+)").matcher(sink.text());
+        while (matcher.find()) {
+            int producer = Integer.parseInt(matcher.group(1));
+            Assert.assertEquals(Integer.parseInt(matcher.group(2)), next[producer]++);
+        }
+        for (int count : next) {
+            Assert.assertEquals(count, events);
+        }
+    }
+
+    @Test
+    public void dropsEventsInsteadOfBlockingWhenFullTest() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CollectingSink sink = new CollectingSink();
+        AsyncLogAppender appender = new AsyncLogAppender(4, batch -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sink.accept(batch);
+        });
+        Log log = new Log("LogTest", Log.Level.INFO, appender);
+        for (int i = 0; i < 100; i++) {
+            log.info("event {}", i);
+        }
+        Assert.assertTrue(appender.getDropped() > 0);
+
+        release.countDown();
+        Assert.assertTrue(appender.flush(Duration.ofSeconds(10)));
+        log.info("after");
+        Assert.assertTrue(appender.flush(Duration.ofSeconds(10)));
+        Assert.assertTrue(sink.text().contains(" log events dropped"));
+        Assert.assertTrue(sink.text().contains("- after"));
+    }
+
+    @Test
+    public void disabledLevelsWriteNothingTest() {
+        CollectingSink sink = new CollectingSink();
+        AsyncLogAppender appender = new AsyncLogAppender(16, sink);
+        Log log = new Log("LogTest", Log.Level.WARN, appender);
+        Assert.assertFalse(log.isDebugEnabled());
+        Assert.assertFalse(log.isInfoEnabled());
+        Assert.assertTrue(log.isEnabled(Log.Level.ERROR));
+
+        log.debug("debug {}", "hidden");
+        log.info("info {}", "hidden");
+        log.warn("warn {}", "shown");
+        Assert.assertTrue(appender.flush(Duration.ofSeconds(10)));
+        Assert.assertFalse(sink.text().contains("hidden"));
+        Assert.assertTrue(sink.text().startsWith("WARN  [" + Thread.currentThread().getName() + "] LogTest", 13));
+        Assert.assertTrue(sink.text().contains(" - warn shown"));
+    }
+
+    @Test
+    public void eventsCarryContextAndStackTraceTest() {
+        CollectingSink sink = new CollectingSink();
+        AsyncLogAppender appender = new AsyncLogAppender(16, sink);
+        Log log = new Log("LogTest", Log.Level.INFO, appender);
+        Map<String, String> previous = LogContext.getAll();
+        LogContext.clear();
+        try {
+            LogContext.put(LogContext.TEST, "LoginPageTest.loginTest");
+            LogContext.put(LogContext.SESSION, "5f2c");
+            log.error("Step {} failed", "login", new IllegalStateException("boom"));
+            LogContext.clear();
+            log.info("no context");
+        } finally {
+            LogContext.setAll(previous);
+        }
+        Assert.assertTrue(appender.flush(Duration.ofSeconds(10)));
+
+        String text = sink.text();
+        Assert.assertTrue(text.contains("LogTest {test=LoginPageTest.loginTest, session=5f2c} - Step login failed"), text);
+        Assert.assertTrue(text.contains("java.lang.IllegalStateException: boom"), text);
+        Assert.assertTrue(text.contains("LogTest - no context"), text);
+    }
+}
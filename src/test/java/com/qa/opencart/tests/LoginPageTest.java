@@ -1,13 +1,18 @@
 package com.qa.opencart.tests;
 
 import com.qa.opencart.utils.Constants;
+import com.qa.opencart.utils.Log;
+import com.qa.opencart.utils.PageState;
+import org.openqa.selenium.By;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 public class LoginPageTest extends BaseTest {
+    private static final Log log = Log.get(LoginPageTest.class);
+
     @Test
     public void loginTest() {
-        System.out.println("This message is to check if the implementation is working fine\n If you are reading this setup is done");
+        log.info("This message is to check if the implementation is working fine\n If you are reading this setup is done");
 
     }
 
@@ -23,4 +28,15 @@ public class LoginPageTest extends BaseTest {
         Assert.assertTrue(url.contains(Constants.LOGIN_PAGE_URL_FRACTION));
     }
 
+    @Test
+    public void loginPageStateTest(){
+        PageState state = loginPage.getLoginPageState();
+        Assert.assertEquals(state.getTitle(), Constants.LOGIN_PAGE_TITLE);
+        Assert.assertTrue(state.getUrl().contains(Constants.LOGIN_PAGE_URL_FRACTION));
+        Assert.assertTrue(state.isLoaded());
+        for (By field : state.getLocators()) {
+            Assert.assertTrue(state.isVisible(field), field + " is not visible");
+        }
+    }
+
 }
@@ -0,0 +1,93 @@
+package com.qa.opencart.tests;
+
+import com.qa.opencart.utils.CommandMetrics;
+import com.qa.opencart.utils.MultiConditionWait;
+import com.qa.opencart.utils.WaitEngine;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MultiConditionWaitTest {
+
+    private static final Duration POLLING = Duration.ofMillis(10);
+
+    /**
+     * Driver whose page shows the error banner (and never the success alert) after the given delay.
+     */
+    private WebDriver fakeDriver(long errorAfterMillis) {
+        long start = System.nanoTime();
+        WebElement banner = (WebElement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {WebElement.class}, (proxy, method, args) -> null);
+        return (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {WebDriver.class, JavascriptExecutor.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("executeScript")) {
+                        return null;
+                    }
+                    boolean shown = (System.nanoTime() - start) / 1_000_000 >= errorAfterMillis;
+                    List<Object> results = new ArrayList<Object>();
+                    for (Object query : (List<?>) ((Object[]) args[1])[0]) {
+                        boolean error = ((List<?>) query).get(1).equals(".alert-danger");
+                        results.add(error && shown ? banner : Boolean.FALSE);
+                    }
+                    return results;
+                });
+    }
+
+    @Test
+    public void anyOfReturnsTheConditionWhichHeldTest() {
+        WaitEngine waits = new WaitEngine(fakeDriver(100), POLLING, POLLING);
+        MultiConditionWait.Result result = waits.anyOf()
+                .whenVisible("success", By.cssSelector(".alert-success"))
+                .whenVisible("error", By.cssSelector(".alert-danger"))
+                .when("accountPage", driver -> null)
+                .until(Duration.ofSeconds(5));
+
+        Assert.assertEquals(result.getWinner(), "error");
+        Assert.assertTrue(result.getValue("error") instanceof WebElement);
+        Assert.assertNull(result.getValue("success"));
+        Assert.assertTrue(result.getElapsed().toMillis() < 2000, "took " + result.getElapsed());
+        MultiConditionWait.ConditionCost error = result.getCosts().get(1);
+        Assert.assertEquals(error.getName(), "error");
+        Assert.assertEquals(error.getBrowserEvaluations(), result.getPolls());
+        // the last poll was decided in the browser, before the ExpectedCondition's turn
+        Assert.assertEquals(result.getCosts().get(2).getEvaluations(), result.getPolls() - 1);
+    }
+
+    @Test
+    public void noneOfWaitsUntilEveryConditionIsGoneTest() {
+        long start = System.nanoTime();
+        WaitEngine waits = new WaitEngine(fakeDriver(0), POLLING, POLLING);
+        MultiConditionWait.Result result = waits.noneOf()
+                .when("spinner", driver -> System.nanoTime() - start < 100_000_000L)
+                .when("overlay", driver -> System.nanoTime() - start < 200_000_000L)
+                .until(Duration.ofSeconds(5));
+
+        Assert.assertNull(result.getWinner());
+        Assert.assertTrue(System.nanoTime() - start >= 200_000_000L);
+        Assert.assertTrue(result.getPolls() > 1);
+    }
+
+    @Test
+    public void allOfTimesOutWithTheConditionWhichDidNotHoldTest() {
+        WaitEngine waits = new WaitEngine(fakeDriver(0), POLLING, POLLING);
+        long timeouts = CommandMetrics.getCounter(CommandMetrics.WAIT_TIMEOUTS);
+        TimeoutException e = Assert.expectThrows(TimeoutException.class, () -> waits.allOf()
+                .whenVisible("error", By.cssSelector(".alert-danger"))
+                .whenVisible("success", By.cssSelector(".alert-success"))
+                .until(Duration.ofMillis(200)));
+
+        Assert.assertTrue(e.getMessage().contains("success did not hold"), e.getMessage());
+        Assert.assertTrue(e.getMessage().contains("costs: [error "), e.getMessage());
+        Assert.assertEquals(CommandMetrics.getCounter(CommandMetrics.WAIT_TIMEOUTS), timeouts + 1);
+    }
+}
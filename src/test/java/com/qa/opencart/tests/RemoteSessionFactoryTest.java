@@ -0,0 +1,92 @@
+package com.qa.opencart.tests;
+
+import com.qa.opencart.factory.RemoteSessionFactory;
+import com.qa.opencart.utils.ConfigManager;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs RemoteSessionFactory against a minimal fake Grid speaking the W3C protocol.
+ */
+public class RemoteSessionFactoryTest {
+    private HttpServer server;
+    private final AtomicInteger sessions = new AtomicInteger();
+    private volatile boolean ready = true;
+
+    @BeforeClass
+    public void startGrid() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopGrid() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        String body;
+        if (path.equals("/status")) {
+            body = "{\"value\":{\"ready\":" + ready + ",\"message\":\"fake grid\"}}";
+        } else if (path.equals("/session") && method.equals("POST")) {
+            body = "{\"value\":{\"sessionId\":\"s" + sessions.incrementAndGet()
+                    + "\",\"capabilities\":{\"browserName\":\"chrome\"}}}";
+        } else if (path.endsWith("/window") && method.equals("GET")) {
+            body = "{\"value\":\"window-" + path.split("/")[2] + "\"}";
+        } else {
+            body = "{\"value\":null}";
+        }
+        exchange.getRequestBody().close();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private RemoteSessionFactory factory() {
+        Properties prop = new Properties();
+        prop.setProperty("grid.url", "http://localhost:" + server.getAddress().getPort());
+        prop.setProperty("grid.read.timeout", "5s");
+        return new RemoteSessionFactory(ConfigManager.of(prop));
+    }
+
+    @Test
+    public void gridStatusTest() {
+        ready = true;
+        Assert.assertTrue(factory().isGridReady());
+        ready = false;
+        Assert.assertFalse(factory().isGridReady());
+        ready = true;
+    }
+
+    @Test
+    public void sessionsShareTheClientTest() {
+        RemoteSessionFactory factory = factory();
+        WebDriver first = factory.createSession(new ChromeOptions());
+        WebDriver second = factory.createSession(new ChromeOptions());
+        Assert.assertNotEquals(first.getWindowHandle(), second.getWindowHandle());
+
+        first.quit();
+        // quitting one session must not close the client the other one uses
+        Assert.assertTrue(second.getWindowHandle().startsWith("window-s"));
+        second.quit();
+    }
+}
@@ -0,0 +1,106 @@
+package com.qa.opencart.tests;
+
+import com.qa.opencart.factory.SessionCache;
+import com.qa.opencart.utils.ConfigManager;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+public class SessionCacheTest {
+
+    private static final String URL = "https://demo.opencart.com/index.php?route=account/login";
+    private static final String USER = "user@mail.com";
+
+    /**
+     * Driver with a cookie jar and empty web storage.
+     */
+    private WebDriver fakeDriver(Set<Cookie> cookies) {
+        WebDriver.Options options = (WebDriver.Options) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {WebDriver.Options.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getCookies":
+                            return new HashSet<Cookie>(cookies);
+                        case "addCookie":
+                            cookies.add((Cookie) args[0]);
+                            return null;
+                        case "deleteAllCookies":
+                            cookies.clear();
+                            return null;
+                        default:
+                            return null;
+                    }
+                });
+        return (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {WebDriver.class, JavascriptExecutor.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "manage":
+                            return options;
+                        case "executeScript":
+                            return Arrays.asList(Collections.emptyMap(), Collections.emptyMap());
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private SessionCache cache(String ttl) {
+        Properties prop = new Properties();
+        prop.setProperty("session.cache.ttl", ttl);
+        return new SessionCache(ConfigManager.of(prop));
+    }
+
+    @Test
+    public void expiredSnapshotIsNotRestoredTest() throws InterruptedException {
+        SessionCache sessions = cache("50ms");
+        sessions.capture(fakeDriver(new HashSet<Cookie>(Collections.singleton(new Cookie("OCSESSID", "1")))), URL, USER);
+        Thread.sleep(100);
+
+        Set<Cookie> jar = new HashSet<Cookie>();
+        Assert.assertFalse(sessions.restore(fakeDriver(jar), URL, USER));
+        Assert.assertTrue(jar.isEmpty());
+    }
+
+    @Test
+    public void evictedSnapshotIsNotRestoredAgainTest() {
+        SessionCache sessions = cache("30m");
+        sessions.capture(fakeDriver(new HashSet<Cookie>(Collections.singleton(new Cookie("OCSESSID", "1")))), URL, USER);
+
+        Set<Cookie> jar = new HashSet<Cookie>();
+        Assert.assertTrue(sessions.restore(fakeDriver(jar), URL, USER));
+        Assert.assertEquals(jar.iterator().next().getValue(), "1");
+
+        // the application rejected the restored session
+        sessions.evict(URL, USER);
+        Assert.assertFalse(sessions.restore(fakeDriver(new HashSet<Cookie>()), URL, USER));
+    }
+
+    @Test
+    public void expiredCookiesAreSkippedTest() {
+        SessionCache sessions = cache("30m");
+        Date past = new Date(System.currentTimeMillis() - 60_000);
+        Date future = new Date(System.currentTimeMillis() + 3_600_000);
+        Set<Cookie> captured = new HashSet<Cookie>(Arrays.asList(
+                new Cookie("OCSESSID", "1", "/", future),
+                new Cookie("currency", "EUR", "/", past),
+                new Cookie("language", "en-gb")));
+        sessions.capture(fakeDriver(captured), URL, USER);
+
+        Set<Cookie> jar = new HashSet<Cookie>();
+        Assert.assertTrue(sessions.restore(fakeDriver(jar), URL, USER));
+        Set<String> names = new HashSet<String>();
+        for (Cookie cookie : jar) {
+            names.add(cookie.getName());
+        }
+        Assert.assertEquals(names, new HashSet<String>(Arrays.asList("OCSESSID", "language")));
+    }
+}
@@ -0,0 +1,87 @@
+package com.qa.opencart.tests;
+
+import com.qa.opencart.factory.StartupCircuitBreaker;
+import com.qa.opencart.utils.CommandMetrics;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+public class StartupCircuitBreakerTest {
+
+    /**
+     * Clock which only moves when the test says so.
+     */
+    private static class ManualClock extends Clock {
+        private long millis;
+
+        void advance(Duration duration) {
+            millis += duration.toMillis();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+
+    private static String failingStartup() {
+        throw new IllegalStateException("chrome not reachable");
+    }
+
+    @Test
+    public void opensAfterRepeatedFailuresTest() {
+        StartupCircuitBreaker breaker = new StartupCircuitBreaker(2, Duration.ofMinutes(1), new ManualClock());
+        long fastFails = CommandMetrics.getCounter(CommandMetrics.STARTUP_FAST_FAILS);
+        for (int i = 0; i < 2; i++) {
+            Assert.assertThrows(IllegalStateException.class, () -> breaker.call(StartupCircuitBreakerTest::failingStartup));
+        }
+        Assert.assertTrue(breaker.isOpen());
+
+        IllegalStateException fastFail = Assert.expectThrows(IllegalStateException.class,
+                () -> breaker.call(() -> "never started"));
+        Assert.assertEquals(fastFail.getCause().getMessage(), "chrome not reachable");
+        Assert.assertEquals(CommandMetrics.getCounter(CommandMetrics.STARTUP_FAST_FAILS), fastFails + 1);
+    }
+
+    @Test
+    public void trialStartupClosesBreakerTest() {
+        ManualClock clock = new ManualClock();
+        StartupCircuitBreaker breaker = new StartupCircuitBreaker(1, Duration.ofMinutes(1), clock);
+        Assert.assertThrows(IllegalStateException.class, () -> breaker.call(StartupCircuitBreakerTest::failingStartup));
+        Assert.assertTrue(breaker.isOpen());
+
+        clock.advance(Duration.ofMinutes(1));
+        Assert.assertEquals(breaker.call(() -> "started"), "started");
+        Assert.assertFalse(breaker.isOpen());
+    }
+
+    @Test
+    public void failedTrialOpensBreakerAgainTest() {
+        ManualClock clock = new ManualClock();
+        StartupCircuitBreaker breaker = new StartupCircuitBreaker(3, Duration.ofSeconds(30), clock);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertThrows(IllegalStateException.class, () -> breaker.call(StartupCircuitBreakerTest::failingStartup));
+        }
+        clock.advance(Duration.ofSeconds(30));
+        Assert.assertThrows(IllegalStateException.class, () -> breaker.call(StartupCircuitBreakerTest::failingStartup));
+
+        IllegalStateException fastFail = Assert.expectThrows(IllegalStateException.class,
+                () -> breaker.call(() -> "never started"));
+        Assert.assertTrue(fastFail.getMessage().contains("circuit is open"));
+    }
+}
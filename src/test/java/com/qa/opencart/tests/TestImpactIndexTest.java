@@ -0,0 +1,106 @@
+package com.qa.opencart.tests;
+
+import com.qa.opencart.tests.impact.FixtureDriver;
+import com.qa.opencart.tests.impact.FixtureOtherCheck;
+import com.qa.opencart.tests.impact.FixturePage;
+import com.qa.opencart.tests.impact.FixturePageCheck;
+import com.qa.opencart.utils.GitChanges;
+import com.qa.opencart.utils.TestImpactIndex;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+public class TestImpactIndexTest {
+    private static final String FIXTURES = "src/test/java/com/qa/opencart/tests/impact/";
+    private static final List<String> TESTS = Arrays.asList(FixturePageCheck.class.getName(), FixtureOtherCheck.class.getName());
+    private static final Set<String> FULL_SUITE = Collections.singleton(FixtureDriver.class.getName());
+
+    private TestImpactIndex index;
+    private Path projectDir;
+
+    @BeforeClass
+    public void scan() throws IOException, URISyntaxException {
+        Path testClasses = Paths.get(TestImpactIndexTest.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        // target/test-classes
+        projectDir = testClasses.getParent().getParent();
+        index = TestImpactIndex.scan(Collections.singletonList(testClasses));
+    }
+
+    /**
+     * A diff replacing the line of the fixture marked with the "edit:" comment.
+     */
+    private List<GitChanges.FileChange> changeLine(String fixture, String edit) throws IOException {
+        String path = FIXTURES + fixture;
+        List<String> lines = Files.readAllLines(projectDir.resolve(path));
+        int line = 1;
+        while (!lines.get(line - 1).endsWith("// edit:" + edit)) {
+            line++;
+        }
+        String source = lines.get(line - 1);
+        return GitChanges.parseDiff("diff --git a/" + path + " b/" + path + "\n"
+                + "--- a/" + path + "\n+++ b/" + path + "\n"
+                + "@@ -" + line + " +" + line + " @@\n-" + source + " // old\n+" + source + "\n");
+    }
+
+    @Test
+    public void dependenciesAreFoundInBytecodeTest() {
+        Assert.assertTrue(index.getReferencedClasses(FixturePageCheck.class.getName()).contains(FixturePage.class.getName()));
+        Assert.assertFalse(index.getReferencedClasses(FixtureOtherCheck.class.getName()).contains(FixturePage.class.getName()));
+    }
+
+    @Test
+    public void changedPageMethodSelectsItsTestsTest() throws IOException {
+        TestImpactIndex.Selection selection = index.select(TESTS, changeLine("FixturePage.java", "title"), FULL_SUITE);
+        Assert.assertFalse(selection.isFullSuite());
+        Assert.assertEquals(selection.getTests(), Collections.singleton(FixturePageCheck.class.getName()));
+    }
+
+    @Test
+    public void changedConstantSelectsTestsUsingItsValueTest() throws IOException {
+        TestImpactIndex.Selection selection = index.select(TESTS, changeLine("FixturePage.java", "constant"), FULL_SUITE);
+        Assert.assertEquals(selection.getTests(), Collections.singleton(FixturePageCheck.class.getName()));
+    }
+
+    @Test
+    public void unusedMethodSelectsNothingTest() throws IOException {
+        TestImpactIndex.Selection selection = index.select(TESTS, changeLine("FixturePage.java", "unused"), FULL_SUITE);
+        Assert.assertFalse(selection.isFullSuite());
+        Assert.assertTrue(selection.getTests().isEmpty(), String.valueOf(selection.getTests()));
+    }
+
+    @Test
+    public void infrastructureChangeRunsFullSuiteTest() throws IOException {
+        Assert.assertTrue(index.select(TESTS, changeLine("FixtureDriver.java", "driver"), FULL_SUITE).isFullSuite());
+        Assert.assertTrue(index.select(TESTS, GitChanges.parseDiff("diff --git a/pom.xml b/pom.xml\n--- a/pom.xml\n"
+                + "+++ b/pom.xml\n@@ -1 +1 @@\n-<project>\n+<project >\n"), FULL_SUITE).isFullSuite());
+    }
+
+    @Test
+    public void deletedResourceRunsFullSuiteTest() {
+        List<GitChanges.FileChange> changes = GitChanges.parseDiff(
+                "diff --git a/src/test/resources/testdata/login.csv b/src/test/resources/testdata/login.csv\n"
+                + "deleted file mode 100644\n"
+                + "--- a/src/test/resources/testdata/login.csv\n+++ /dev/null\n"
+                + "@@ -1,2 +0,0 @@\n--- user,password\n-a,b\n"
+                + "diff --git a/data.xlsx b/data.xlsx\ndeleted file mode 100644\n"
+                + "Binary files a/data.xlsx and /dev/null differ\n");
+        Assert.assertEquals(changes.size(), 2);
+        Assert.assertEquals(changes.get(0).getPath(), "src/test/resources/testdata/login.csv");
+        Assert.assertTrue(changes.get(0).isDeleted());
+        Assert.assertEquals(changes.get(1).getPath(), "data.xlsx");
+        Assert.assertTrue(changes.get(1).isDeleted());
+
+        TestImpactIndex.Selection selection = index.select(TESTS, changes, FULL_SUITE);
+        Assert.assertTrue(selection.isFullSuite());
+    }
+}
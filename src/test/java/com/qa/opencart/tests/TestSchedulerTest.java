@@ -0,0 +1,62 @@
+package com.qa.opencart.tests;
+
+import com.qa.opencart.utils.TestDurationHistory;
+import com.qa.opencart.utils.TestScheduler;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestSchedulerTest {
+
+    private Map<String, Long> estimates(Object... nameAndMillis) {
+        Map<String, Long> estimates = new LinkedHashMap<String, Long>();
+        for (int i = 0; i < nameAndMillis.length; i += 2) {
+            estimates.put((String) nameAndMillis[i], ((Number) nameAndMillis[i + 1]).longValue());
+        }
+        return estimates;
+    }
+
+    @Test
+    public void longestProcessingTimeFirstTest() {
+        Map<String, Long> estimates = estimates("A", 20, "B", 70, "C", 50, "D", 30, "E", 30);
+        List<List<String>> bins = TestScheduler.pack(estimates, 2);
+        Assert.assertEquals(bins.get(0), Arrays.asList("B", "E"));
+        Assert.assertEquals(bins.get(1), Arrays.asList("C", "D", "A"));
+        Assert.assertEquals(TestScheduler.makespan(bins, estimates), 100);
+    }
+
+    @Test
+    public void noHistoryKeepsDeclaredOrderTest() throws IOException {
+        Path dir = Files.createTempDirectory("history");
+        TestDurationHistory history = TestDurationHistory.load(dir.resolve("none.properties"));
+        Map<String, Long> estimates = TestScheduler.estimate(Arrays.asList("A", "B", "C", "D"), history);
+        Assert.assertEquals(TestScheduler.longestFirst(estimates), Arrays.asList("A", "B", "C", "D"));
+        Assert.assertEquals(TestScheduler.pack(estimates, 2),
+                Arrays.asList(Arrays.asList("A", "C"), Arrays.asList("B", "D")));
+    }
+
+    @Test
+    public void historyIsBlendedAndUsedForUnknownClassesTest() throws IOException {
+        Path file = Files.createTempDirectory("history").resolve("durations.properties");
+        TestDurationHistory.load(file).record(estimates("A", 100, "B", 300), Collections.<String, Long>emptyMap());
+        TestDurationHistory.load(file).record(estimates("A", 200), estimates("A.test", 200));
+
+        TestDurationHistory history = TestDurationHistory.load(file);
+        Assert.assertEquals(history.getClassMillis("A"), 150);
+        Assert.assertEquals(history.getClassMillis("B"), 300);
+        Assert.assertEquals(history.getMethodMillis("A", "test"), 200);
+        Assert.assertEquals(history.getClassMillis("C"), -1);
+
+        Map<String, Long> estimates = TestScheduler.estimate(Arrays.asList("A", "B", "C"), history);
+        Assert.assertEquals(estimates.get("C").longValue(), 225);
+        Assert.assertEquals(TestScheduler.longestFirst(estimates), Arrays.asList("B", "C", "A"));
+    }
+}
@@ -0,0 +1,11 @@
+package com.qa.opencart.tests.impact;
+
+/**
+ * Test class of TestImpactIndexTest which does not use FixturePage.
+ */
+public class FixtureOtherCheck {
+
+    public String driverOnly() {
+        return FixtureDriver.currentTitle();
+    }
+}
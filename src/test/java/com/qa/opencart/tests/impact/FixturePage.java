@@ -0,0 +1,16 @@
+package com.qa.opencart.tests.impact;
+
+/**
+ * Page class edited by TestImpactIndexTest, which finds the lines to change by their "edit:" comments.
+ */
+public class FixturePage {
+    public static final String TITLE = "Fixture Login"; // edit:constant
+
+    public String title() {
+        return "Title: " + FixtureDriver.currentTitle(); // edit:title
+    }
+
+    public String unused() {
+        return "never called"; // edit:unused
+    }
+}
@@ -0,0 +1,15 @@
+package com.qa.opencart.tests.impact;
+
+/**
+ * Test class of TestImpactIndexTest using FixturePage.
+ */
+public class FixturePageCheck {
+
+    public String titleIsShown() {
+        return new FixturePage().title();
+    }
+
+    public boolean titleMatches(String title) {
+        return FixturePage.TITLE.equals(title);
+    }
+}